@@ -0,0 +1,46 @@
+package hello.springtx;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * application.properties의 트랜잭션/SQL 로그가 측정값을 왜곡하지 않도록 로그 레벨을 낮춰서 띄운다
+ */
+public abstract class BenchmarkContext {
+
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.root=WARN",
+            "--logging.level.hello.springtx=WARN",
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.hibernate.resource.transaction=WARN",
+            "--logging.level.org.hibernate.SQL=WARN"
+    };
+
+    public static ConfigurableApplicationContext start(String... args) {
+        return start(context -> {
+        }, args);
+    }
+
+    /**
+     * initializer: 빈이 만들어지기 전에 컨텍스트를 설정한다 (ex. 측정용 BeanPostProcessor 등록)
+     */
+    public static ConfigurableApplicationContext start(ApplicationContextInitializer<ConfigurableApplicationContext> initializer,
+                                                       String... args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(QUIET_LOGGING));
+        arguments.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(initializer)
+                .run(arguments.toArray(new String[0]));
+    }
+
+}
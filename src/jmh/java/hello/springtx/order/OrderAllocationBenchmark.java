@@ -0,0 +1,66 @@
+package hello.springtx.order;
+
+import hello.springtx.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 한 번당 할당량 (./gradlew jmh -PjmhArgs='OrderAllocationBenchmark -prof gc', gc.alloc.rate.norm 이 호출당 바이트)
+ * - order: OrderService.order 정상 주문 (insert 2건 + 커밋)
+ * - emptyTransaction: 본문 없는 REQUIRED 트랜잭션 (트랜잭션 시작/커밋 경로만)
+ * recycleStatus=true 이면 InstrumentedTransactionStatus 를 스레드별로 재사용한다 (springtx.tx.metrics.recycle-status)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderAllocationBenchmark {
+
+    @Param({"false", "true"})
+    boolean recycleStatus;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    TransactionTemplate txTemplate;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("--springtx.tx.metrics.recycle-status=" + recycleStatus);
+        orderService = context.getBean(OrderService.class);
+        txTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void order() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+    }
+
+    @Benchmark
+    public Object emptyTransaction() {
+        return txTemplate.execute(status -> status);
+    }
+
+}
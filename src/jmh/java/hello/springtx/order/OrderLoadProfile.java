@@ -0,0 +1,75 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정, 인자는 key=value 형식이다 (같은 key 는 뒤에 온 값이 이긴다)
+ * - threads: 동시에 주문하는 스레드 수 (기본 200)
+ * - orders: 측정할 주문 수 (기본 20000)
+ * - warmup: 측정 전에 버리는 주문 수 (기본 2000)
+ * - pool-size: 커넥션 풀 크기 (기본 10)
+ * - exception-ratio: "예외" 주문 비율, 시스템 예외로 롤백된다 (기본 0.05)
+ * - insufficient-ratio: "잔고부족" 주문 비율, 비즈니스 예외지만 커밋된다 (기본 0.10)
+ * - seed: 주문 종류를 섞는 난수 시드 (기본 42)
+ * - output: 결과 JSON 파일 경로 (기본 build/load-test/order-load.json)
+ */
+@Getter
+@ToString
+public class OrderLoadProfile {
+
+    private final int threads;
+    private final int orders;
+    private final int warmup;
+    private final int poolSize;
+    private final double exceptionRatio;
+    private final double insufficientRatio;
+    private final long seed;
+    private final String output;
+
+    private OrderLoadProfile(Map<String, String> values) {
+        this.threads = Integer.parseInt(values.getOrDefault("threads", "200"));
+        this.orders = Integer.parseInt(values.getOrDefault("orders", "20000"));
+        this.warmup = Integer.parseInt(values.getOrDefault("warmup", "2000"));
+        this.poolSize = Integer.parseInt(values.getOrDefault("pool-size", "10"));
+        this.exceptionRatio = Double.parseDouble(values.getOrDefault("exception-ratio", "0.05"));
+        this.insufficientRatio = Double.parseDouble(values.getOrDefault("insufficient-ratio", "0.10"));
+        this.seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        this.output = values.getOrDefault("output", "build/load-test/order-load.json");
+        if (threads < 1 || orders < 1 || poolSize < 1 || warmup < 0) {
+            throw new IllegalArgumentException("threads, orders, pool-size 는 1 이상이어야 합니다. " + this);
+        }
+        if (exceptionRatio < 0 || insufficientRatio < 0 || exceptionRatio + insufficientRatio > 1) {
+            throw new IllegalArgumentException("exception-ratio + insufficient-ratio 는 0 ~ 1 이어야 합니다. " + this);
+        }
+    }
+
+    public static OrderLoadProfile parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("key=value 형식이 아닙니다. arg=" + arg);
+            }
+            values.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+        }
+        return new OrderLoadProfile(values);
+    }
+
+    /**
+     * 0 ~ 1 사이의 난수로 주문 사용자 이름(정상, 예외, 잔고부족)을 고른다
+     */
+    String username(double random) {
+        if (random < exceptionRatio) {
+            return "예외";
+        }
+        if (random < exceptionRatio + insufficientRatio) {
+            return "잔고부족";
+        }
+        return "정상";
+    }
+
+}
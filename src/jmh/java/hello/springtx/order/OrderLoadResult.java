@@ -0,0 +1,110 @@
+package hello.springtx.order;
+
+import hello.springtx.tx.LatencySnapshot;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 부하 테스트 측정 결과 (시간 단위: 나노초)
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderLoadResult {
+
+    private final OrderLoadProfile profile;
+    private final long elapsedNanos;
+    private final long completed;     // 정상 승인 (커밋)
+    private final long pending;       // 잔고 부족 (NotEnoughMoneyException, 커밋)
+    private final long failed;        // 시스템 예외 (롤백)
+    private final long txRollbacks;   // TxMetrics 가 기록한 order 트랜잭션 롤백 수 (-1: TxMetrics 꺼짐)
+    private final long retries;       // @RetryableTransaction 재시도 수 (-1: 재시도 꺼짐)
+    private final LatencySnapshot latency;   // order() 호출 시간
+    private final LatencySnapshot poolWait;  // 커넥션 풀 대기 시간
+    private final long poolTimeouts;
+
+    public long getTotal() {
+        return completed + pending + failed;
+    }
+
+    public double getThroughput() {
+        return getTotal() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public double getRollbackRate() {
+        return getTotal() == 0 ? 0 : failed / (double) getTotal();
+    }
+
+    public void print() {
+        System.out.printf(Locale.ROOT, "%n[order load] threads=%d, pool-size=%d, orders=%d (exception %.0f%%, insufficient %.0f%%)%n",
+                profile.getThreads(), profile.getPoolSize(), getTotal(),
+                profile.getExceptionRatio() * 100, profile.getInsufficientRatio() * 100);
+        System.out.printf(Locale.ROOT, "  throughput    %.1f orders/s (%.0f ms)%n", getThroughput(), millis(elapsedNanos));
+        System.out.printf(Locale.ROOT, "  latency       p50=%.2f ms, p99=%.2f ms, p999=%.2f ms, max=%.2f ms%n",
+                millis(latency.getP50()), millis(latency.getP99()), millis(latency.getP999()), millis(latency.getMax()));
+        System.out.printf(Locale.ROOT, "  pool wait     mean=%.2f ms, p99=%.2f ms, max=%.2f ms, timeouts=%d%n",
+                millis(poolWait.getMean()), millis(poolWait.getP99()), millis(poolWait.getMax()), poolTimeouts);
+        System.out.printf(Locale.ROOT, "  outcome       completed=%d, pending=%d, failed=%d, rollback rate=%.2f%%, tx rollbacks=%d, retries=%d%n",
+                completed, pending, failed, getRollbackRate() * 100, txRollbacks, retries);
+    }
+
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    String toJson() {
+        return "{\n"
+                + "  \"profile\": {"
+                + field("threads", profile.getThreads()) + ", "
+                + field("orders", profile.getOrders()) + ", "
+                + field("warmup", profile.getWarmup()) + ", "
+                + field("poolSize", profile.getPoolSize()) + ", "
+                + field("exceptionRatio", profile.getExceptionRatio()) + ", "
+                + field("insufficientRatio", profile.getInsufficientRatio()) + ", "
+                + field("seed", profile.getSeed()) + "},\n"
+                + "  " + field("elapsedNanos", elapsedNanos) + ",\n"
+                + "  " + field("throughput", getThroughput()) + ",\n"
+                + "  \"outcome\": {"
+                + field("completed", completed) + ", "
+                + field("pending", pending) + ", "
+                + field("failed", failed) + ", "
+                + field("rollbackRate", getRollbackRate()) + ", "
+                + field("txRollbacks", txRollbacks) + ", "
+                + field("retries", retries) + "},\n"
+                + "  \"latencyNanos\": " + json(latency) + ",\n"
+                + "  \"poolWaitNanos\": " + json(poolWait) + ",\n"
+                + "  " + field("poolTimeouts", poolTimeouts) + "\n"
+                + "}\n";
+    }
+
+    private static String json(LatencySnapshot snapshot) {
+        return "{" + field("count", snapshot.getCount()) + ", "
+                + field("mean", snapshot.getMean()) + ", "
+                + field("p50", snapshot.getP50()) + ", "
+                + field("p99", snapshot.getP99()) + ", "
+                + field("p999", snapshot.getP999()) + ", "
+                + field("max", snapshot.getMax()) + "}";
+    }
+
+    private static String field(String name, long value) {
+        return "\"" + name + "\": " + value;
+    }
+
+    private static String field(String name, double value) {
+        return "\"" + name + "\": " + String.format(Locale.ROOT, "%.4f", value);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+}
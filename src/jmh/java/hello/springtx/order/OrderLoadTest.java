@@ -0,0 +1,173 @@
+package hello.springtx.order;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.BenchmarkContext;
+import hello.springtx.tx.LatencyHistogram;
+import hello.springtx.tx.RetryMetrics;
+import hello.springtx.tx.RetryStatsSnapshot;
+import hello.springtx.tx.TxMetrics;
+import hello.springtx.tx.TxStatsSnapshot;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OrderService.order() 동시 주문 부하 테스트 (in-memory H2)
+ * threads 개의 스레드가 orders 건의 주문을 나눠서 처리하고 지연 시간, 처리량, 롤백 비율, 커넥션 풀 대기 시간을 측정한다
+ * 결과는 콘솔에 출력하고 output 경로에 JSON 으로 저장한다
+ *
+ * ./gradlew loadTest -PloadTestArgs='threads=200 orders=20000 pool-size=10 exception-ratio=0.05 insufficient-ratio=0.1'
+ * 인자 설명은 OrderLoadProfile 참고
+ */
+public class OrderLoadTest {
+
+    private static final String ORDER_TX = OrderService.class.getName() + ".order";
+
+    private final OrderLoadProfile profile;
+    private final OrderService orderService;
+    private final Random random;
+
+    OrderLoadTest(OrderLoadProfile profile, OrderService orderService) {
+        this.profile = profile;
+        this.orderService = orderService;
+        this.random = new Random(profile.getSeed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        OrderLoadProfile profile = OrderLoadProfile.parse(args);
+        PoolWaitTracker poolWait = new PoolWaitTracker();
+        try (ConfigurableApplicationContext context = BenchmarkContext.start(
+                ctx -> ctx.getBeanFactory().addBeanPostProcessor(poolWaitTracking(poolWait)),
+                "--spring.datasource.hikari.maximum-pool-size=" + profile.getPoolSize(),
+                "--spring.datasource.hikari.minimum-idle=" + profile.getPoolSize(),
+                "--springtx.cache.enabled=false")) {
+            OrderLoadTest loadTest = new OrderLoadTest(profile, context.getBean(OrderService.class));
+            TxMetrics txMetrics = context.getBeanProvider(TxMetrics.class).getIfAvailable();
+            RetryMetrics retryMetrics = context.getBeanProvider(RetryMetrics.class).getIfAvailable();
+
+            // 워밍업 결과는 버린다
+            loadTest.run(profile.getWarmup(), new Recorder());
+            poolWait.reset();
+            if (txMetrics != null) {
+                txMetrics.reset();
+            }
+            if (retryMetrics != null) {
+                retryMetrics.reset();
+            }
+
+            Recorder recorder = new Recorder();
+            long elapsed = loadTest.run(profile.getOrders(), recorder);
+
+            OrderLoadResult result = new OrderLoadResult(profile, elapsed,
+                    recorder.completed.sum(), recorder.pending.sum(), recorder.failed.sum(),
+                    txRollbacks(txMetrics), retries(retryMetrics),
+                    recorder.latency.snapshot(), poolWait.snapshot(), poolWait.getTimeouts());
+            result.print();
+            result.write(Paths.get(profile.getOutput()));
+            System.out.println("  result        " + Paths.get(profile.getOutput()).toAbsolutePath());
+        }
+    }
+
+    /**
+     * count 건의 주문을 threads 개의 스레드로 처리하고 걸린 시간(나노초)을 반환한다
+     */
+    long run(int count, Recorder recorder) throws InterruptedException {
+        if (count == 0) {
+            return 0;
+        }
+        String[] usernames = new String[count];
+        for (int i = 0; i < count; i++) {
+            usernames[i] = profile.username(random.nextDouble());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(profile.getThreads());
+        CountDownLatch ready = new CountDownLatch(profile.getThreads());
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger next = new AtomicInteger();
+        for (int t = 0; t < profile.getThreads(); t++) {
+            executor.execute(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    order(usernames[i], recorder);
+                }
+            });
+        }
+        ready.await();
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("부하 테스트가 10분 안에 끝나지 않았습니다.");
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private void order(String username, Recorder recorder) {
+        Order order = new Order();
+        order.setUsername(username);
+        long start = System.nanoTime();
+        try {
+            orderService.order(order);
+            recorder.completed.increment();
+        } catch (NotEnoughMoneyException e) {
+            recorder.pending.increment();
+        } catch (RuntimeException e) {
+            recorder.failed.increment();
+        } finally {
+            recorder.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private static long txRollbacks(TxMetrics txMetrics) {
+        if (txMetrics == null) {
+            return -1;
+        }
+        TxStatsSnapshot stats = txMetrics.snapshot(ORDER_TX, TransactionDefinition.PROPAGATION_REQUIRED);
+        return stats == null ? 0 : stats.getRollbackCount();
+    }
+
+    private static long retries(RetryMetrics retryMetrics) {
+        if (retryMetrics == null) {
+            return -1;
+        }
+        RetryStatsSnapshot stats = retryMetrics.snapshot(ORDER_TX);
+        return stats == null ? 0 : stats.getRetries();
+    }
+
+    private static BeanPostProcessor poolWaitTracking(PoolWaitTracker poolWait) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // 풀은 첫 getConnection() 에서 시작되므로 그 전에 등록한다
+                if (bean instanceof HikariDataSource) {
+                    ((HikariDataSource) bean).setMetricsTrackerFactory(poolWait);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static class Recorder {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder completed = new LongAdder();
+        final LongAdder pending = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+
+}
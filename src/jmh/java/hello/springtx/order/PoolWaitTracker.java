@@ -0,0 +1,48 @@
+package hello.springtx.order;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import hello.springtx.tx.LatencyHistogram;
+import hello.springtx.tx.LatencySnapshot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP 가 커넥션을 빌려줄 때까지 기다린 시간(getConnection 대기)을 기록한다
+ * 풀이 시작되기 전에 HikariDataSource.setMetricsTrackerFactory() 로 등록해야 한다
+ */
+public class PoolWaitTracker implements MetricsTrackerFactory {
+
+    private volatile LatencyHistogram acquire = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public LatencySnapshot snapshot() {
+        return acquire.snapshot();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public void reset() {
+        acquire = new LatencyHistogram();
+        timeouts.reset();
+    }
+
+}
@@ -0,0 +1,93 @@
+package hello.springtx.propagation;
+
+import hello.springtx.BenchmarkContext;
+import hello.springtx.datasource.LazyConnectionDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그 저장 실패를 복구하는 회원가입 (in-memory H2, JpaTransactionManager, 커넥션 풀 10개, 16 스레드)
+ * - requiresNew: joinV2, 로그를 REQUIRES_NEW 로 저장 (회원가입 한 번에 커넥션 2개)
+ * - nested: joinV4, 로그를 NESTED(savepoint)로 저장 (커넥션 1개)
+ * failure: 로그 저장이 실패하는 비율(%)
+ * 반복(iteration)마다 회원가입 한 번에 풀에서 가져간 커넥션 수(connections/op)를 출력한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class LogPropagationBenchmark {
+
+    @Param({"requiresNew", "nested"})
+    String propagation;
+
+    @Param({"0", "10"})
+    int failure;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    LazyConnectionDataSource dataSource;
+
+    final AtomicLong sequence = new AtomicLong();
+    final AtomicLong operations = new AtomicLong();
+    long physicalConnections;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--springtx.datasource.lazy-connection.enabled=true");
+        memberService = context.getBean(MemberService.class);
+        dataSource = context.getBean(LazyConnectionDataSource.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        operations.set(0);
+        physicalConnections = dataSource.getPhysicalConnectionCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printConnections() {
+        long connections = dataSource.getPhysicalConnectionCount() - physicalConnections;
+        System.out.printf("  [%s, failure=%d%%] connections/op=%.2f%n",
+                propagation, failure, (double) connections / Math.max(operations.get(), 1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void join() {
+        long n = sequence.incrementAndGet();
+        String username = (n % 100 < failure ? "로그예외 " : "") + propagation + "-" + n;
+        if (propagation.equals("nested")) {
+            memberService.joinV4(username);
+        } else {
+            memberService.joinV2(username);
+        }
+        operations.incrementAndGet();
+    }
+
+}
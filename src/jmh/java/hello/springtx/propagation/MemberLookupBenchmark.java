@@ -0,0 +1,86 @@
+package hello.springtx.propagation;
+
+import hello.springtx.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * member, log 테이블에 각각 100만 건을 넣고 username/message 로 조회한다
+ * - index: 엔티티에 선언한 인덱스 사용 (noIndex 는 인덱스를 지운 full table scan)
+ * - cache: cache 프로필 (쿼리 캐시 + 2차 캐시)
+ * findExisting 은 자주 조회되는 1000명 중에서, findMissing 은 가입되지 않은 username 으로 조회한다 (회원가입 중복 확인)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberLookupBenchmark {
+
+    static final int ROWS = 1_000_000;
+    static final int HOT_MEMBERS = 1_000;
+
+    @Param({"index", "noIndex"})
+    String index;
+
+    @Param({"false", "true"})
+    boolean cache;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    LogRepository logRepository;
+
+    @Setup
+    public void setUp() {
+        context = cache ? BenchmarkContext.start("--spring.profiles.active=cache") : BenchmarkContext.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        logRepository = context.getBean(LogRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into member(id, username, version) select x, 'member-' || x, 0 from system_range(1, " + ROWS + ")");
+        jdbcTemplate.update("insert into log(id, message) select x, 'member-' || x from system_range(1, " + ROWS + ")");
+        if (index.equals("noIndex")) {
+            jdbcTemplate.execute("alter table member drop constraint uk_member_username");
+            jdbcTemplate.execute("drop index idx_log_message");
+        }
+        jdbcTemplate.execute("analyze");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Member> findExisting() {
+        return memberRepository.find("member-" + ThreadLocalRandom.current().nextInt(1, HOT_MEMBERS + 1));
+    }
+
+    @Benchmark
+    public Optional<Member> findMissing() {
+        return memberRepository.find("missing-" + ThreadLocalRandom.current().nextInt());
+    }
+
+    @Benchmark
+    public Optional<Log> findLog() {
+        return logRepository.find("member-" + ThreadLocalRandom.current().nextInt(1, ROWS + 1));
+    }
+
+}
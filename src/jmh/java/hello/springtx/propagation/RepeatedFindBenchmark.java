@@ -0,0 +1,107 @@
+package hello.springtx.propagation;
+
+import hello.springtx.BenchmarkContext;
+import hello.springtx.jpa.QueryStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 조회 한 건의 지연 시간 (in-memory H2, member 1만 건)
+ * query
+ * - dynamic: 호출마다 em.createQuery(JPQL 문자열) (이전 MemberRepository.find)
+ * - named: em.createNamedQuery (시작 시점에 파싱된 쿼리)
+ * statementCache: H2 세션별 statement 캐시 크기 (QUERY_CACHE_SIZE, 0 이면 실행마다 SQL 을 다시 파싱한다)
+ * - acrossTransactions: 조회마다 트랜잭션을 새로 시작한다
+ * - withinTransaction: 한 트랜잭션에서 10번 조회한다
+ * 측정이 끝나면 쿼리 플랜 캐시 적중률을 출력한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepeatedFindBenchmark {
+
+    static final int ROWS = 10_000;
+    static final int FINDS_PER_TRANSACTION = 10;
+    static final String JPQL = "select m from Member m where m.username = :username";
+
+    @Param({"dynamic", "named"})
+    String query;
+
+    @Param({"0", "64"})
+    String statementCache;
+
+    ConfigurableApplicationContext context;
+    EntityManager em;
+    TransactionTemplate txTemplate;
+    QueryStatistics queryStatistics;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "--spring.datasource.hikari.data-source-properties.QUERY_CACHE_SIZE=" + statementCache,
+                "--springtx.jpa.statistics.enabled=true");
+        em = context.getBean(EntityManager.class);
+        txTemplate = context.getBean(TransactionTemplate.class);
+        queryStatistics = context.getBean(QueryStatistics.class);
+        context.getBean(JdbcTemplate.class).update(
+                "insert into member(id, username, version) select x, 'member-' || x, 0 from system_range(1, " + ROWS + ")");
+        queryStatistics.reset();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("  [" + query + ", statementCache=" + statementCache + "] " + queryStatistics.snapshot()
+                + " hitRate=" + queryStatistics.snapshot().getQueryPlanCacheHitRate());
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Member> acrossTransactions() {
+        return txTemplate.execute(status -> find());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FINDS_PER_TRANSACTION)
+    public Optional<Member> withinTransaction() {
+        return txTemplate.execute(status -> {
+            Optional<Member> member = Optional.empty();
+            for (int i = 0; i < FINDS_PER_TRANSACTION; i++) {
+                member = find();
+            }
+            return member;
+        });
+    }
+
+    private Optional<Member> find() {
+        String username = "member-" + ThreadLocalRandom.current().nextInt(1, ROWS + 1);
+        return (query.equals("named")
+                ? em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class)
+                : em.createQuery(JPQL, Member.class))
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList().stream().findFirst();
+    }
+
+}
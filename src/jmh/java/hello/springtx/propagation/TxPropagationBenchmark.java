@@ -0,0 +1,102 @@
+package hello.springtx.propagation;
+
+import hello.springtx.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BasicTxTest 의 시나리오별 트랜잭션 매니저 비용
+ * - commit: 물리 트랜잭션 하나 시작/커밋
+ * - requiredJoin: 외부 트랜잭션에 내부 트랜잭션이 참여 (inner_commit)
+ * - requiresNew: 외부 트랜잭션을 보류하고 새 커넥션으로 내부 트랜잭션 시작 (inner_rollback_requires_new)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TxPropagationBenchmark {
+
+    @Param({"jdbc", "jpa"})
+    String txManager;
+
+    ConfigurableApplicationContext context;
+    PlatformTransactionManager tm;
+
+    final TransactionDefinition required = new DefaultTransactionDefinition();
+    final TransactionDefinition requiresNew =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start();
+        if (txManager.equals("jdbc")) {
+            tm = new DataSourceTransactionManager(context.getBean(DataSource.class));
+        } else {
+            tm = plainJpaTransactionManager();
+        }
+    }
+
+    /**
+     * 컨텍스트의 트랜잭션 매니저 빈은 InstrumentedTransactionManager, ConnectionBudgetTransactionManager 로 감싸져 있을 수 있다
+     * 트랜잭션 매니저 자체의 비용만 재도록 같은 EntityManagerFactory 로 감싸지 않은 JpaTransactionManager 를 만든다
+     * (EntityManagerFactory 의 SavepointHibernateJpaDialect 대신 기본 HibernateJpaDialect)
+     */
+    private PlatformTransactionManager plainJpaTransactionManager() {
+        JpaTransactionManager jpaTransactionManager = new JpaTransactionManager(context.getBean(EntityManagerFactory.class));
+        jpaTransactionManager.setJpaDialect(new HibernateJpaDialect());
+        jpaTransactionManager.afterPropertiesSet();
+        return jpaTransactionManager;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void commit() {
+        TransactionStatus status = tm.getTransaction(required);
+        tm.commit(status);
+    }
+
+    @Benchmark
+    public void requiredJoin() {
+        TransactionStatus outer = tm.getTransaction(required);
+        TransactionStatus inner = tm.getTransaction(required);
+        tm.commit(inner);
+        tm.commit(outer);
+    }
+
+    @Benchmark
+    public void requiresNew() {
+        TransactionStatus outer = tm.getTransaction(required);
+        TransactionStatus inner = tm.getTransaction(requiresNew);
+        tm.commit(inner);
+        tm.commit(outer);
+    }
+
+}
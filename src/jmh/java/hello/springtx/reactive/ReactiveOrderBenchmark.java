@@ -0,0 +1,99 @@
+package hello.springtx.reactive;
+
+import hello.springtx.BenchmarkContext;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 주문 200건을 동시에 16건씩 처리하는 처리량 비교 (in-memory H2, 커넥션 풀 10개)
+ * - blocking: OrderService.order (JPA), 16개 스레드 풀에서 실행
+ * - reactive: ReactiveOrderService.order (R2DBC), flatMap 동시성 16
+ *   r2dbc-h2 는 embedded H2 를 구독한 스레드에서 실행하므로 주문마다 parallel 스케줄러(코어 수 만큼의 스레드)에서 구독한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactiveOrderBenchmark {
+
+    static final int ORDERS = 200;
+    static final int CONCURRENCY = 16;
+
+    @Param({"blocking", "reactive"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+    ReactiveOrderService reactiveOrderService;
+    ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--springtx.reactive.enabled=true",
+                "--springtx.reactive.pool-size=10");
+        orderService = context.getBean(OrderService.class);
+        reactiveOrderService = context.getBean(ReactiveOrderService.class);
+        executor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void order() {
+        if (mode.equals("reactive")) {
+            Flux.range(0, ORDERS)
+                    .flatMap(i -> reactiveOrderService.order(newOrder()).subscribeOn(Schedulers.parallel()), CONCURRENCY)
+                    .blockLast();
+        } else {
+            CompletableFuture.allOf(IntStream.range(0, ORDERS)
+                    .mapToObj(i -> CompletableFuture.runAsync(this::blockingOrder, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        }
+    }
+
+    private void blockingOrder() {
+        try {
+            orderService.order(newOrder());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setUsername("정상");
+        return order;
+    }
+
+}
@@ -0,0 +1,79 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 예외가 난 트랜잭션의 롤백 판단, 비즈니스 예외 생성 비용
+ * - rules / cachedRules: rollbackFor, noRollbackFor 규칙 평가 (RuleBasedTransactionAttribute vs RollbackDecisionCache)
+ * - stackTraceException / businessException: 스택 트레이스를 채우는 예외 vs NotEnoughMoneyException (깊은 호출 스택에서 생성)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RollbackRuleBenchmark {
+
+    // 트랜잭션 AOP, 재시도 AOP, 프록시를 거친 호출 스택 깊이와 비슷하게 맞춘다
+    private static final int STACK_DEPTH = 60;
+
+    RuleBasedTransactionAttribute attribute;
+    RollbackDecisionCache cache;
+    Exception failure;
+
+    @Setup
+    public void setUp() {
+        attribute = new RuleBasedTransactionAttribute();
+        attribute.setRollbackRules(Arrays.asList(
+                new RollbackRuleAttribute(IllegalStateException.class),
+                new NoRollbackRuleAttribute(IllegalArgumentException.class),
+                new NoRollbackRuleAttribute(NotEnoughMoneyException.class)));
+        cache = new RollbackDecisionCache(attribute::rollbackOn);
+        failure = new NotEnoughMoneyException("잔고가 부족합니다.");
+    }
+
+    @Benchmark
+    public boolean rules() {
+        return attribute.rollbackOn(failure);
+    }
+
+    @Benchmark
+    public boolean cachedRules() {
+        return cache.rollbackOn(failure);
+    }
+
+    @Benchmark
+    public Exception stackTraceException() {
+        return create(STACK_DEPTH, false);
+    }
+
+    @Benchmark
+    public Exception businessException() {
+        return create(STACK_DEPTH, true);
+    }
+
+    private static Exception create(int depth, boolean business) {
+        if (depth > 0) {
+            return create(depth - 1, business);
+        }
+        return business ? new NotEnoughMoneyException("잔고가 부족합니다.") : new Exception("잔고가 부족합니다.");
+    }
+
+}
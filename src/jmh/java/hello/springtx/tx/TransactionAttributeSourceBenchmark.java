@@ -0,0 +1,128 @@
+package hello.springtx.tx;
+
+import hello.springtx.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 속성 조회 비용: 어노테이션(AnnotationTransactionAttributeSource) vs 빌드 시점 인덱스(IndexedTransactionAttributeSource)
+ * - firstLookup: 빈 캐시에서 hello.springtx 의 모든 클래스, 메서드 속성을 한 번씩 찾는다 (프록시 생성 + 메서드별 첫 호출)
+ * - cachedLookup: 캐시된 뒤의 호출당 조회 비용
+ * - startup: 스프링 컨텍스트 시작, 종료 (index=true 이면 인덱스 파일을 읽는다)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionAttributeSourceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Lookup {
+
+        @Param({"annotation", "index"})
+        String source;
+
+        TransactionAttributeIndex index;
+        List<Class<?>> types = new ArrayList<>();
+        List<Method[]> methods = new ArrayList<>();
+
+        TransactionAttributeSource warm;
+
+        @Setup
+        public void setUp() throws ClassNotFoundException {
+            index = new TransactionAttributeIndexGenerator(ClassUtils.getDefaultClassLoader()).generate("hello.springtx");
+            for (String className : index.getClassNames()) {
+                Class<?> type = ClassUtils.forName(className, ClassUtils.getDefaultClassLoader());
+                types.add(type);
+                methods.add(ReflectionUtils.getUniqueDeclaredMethods(type));
+            }
+            warm = newSource();
+        }
+
+        TransactionAttributeSource newSource() {
+            AnnotationTransactionAttributeSource annotationSource = new AnnotationTransactionAttributeSource();
+            return "index".equals(source) ? new IndexedTransactionAttributeSource(annotationSource, index) : annotationSource;
+        }
+
+    }
+
+    @Benchmark
+    public void firstLookup(Lookup lookup, Blackhole blackhole) {
+        resolveAll(lookup, lookup.newSource(), blackhole);
+    }
+
+    @Benchmark
+    public void cachedLookup(Lookup lookup, Blackhole blackhole) {
+        resolveAll(lookup, lookup.warm, blackhole);
+    }
+
+    private void resolveAll(Lookup lookup, TransactionAttributeSource source, Blackhole blackhole) {
+        for (int i = 0; i < lookup.types.size(); i++) {
+            Class<?> type = lookup.types.get(i);
+            if (!source.isCandidateClass(type)) {
+                continue;
+            }
+            for (Method method : lookup.methods.get(i)) {
+                blackhole.consume(source.getTransactionAttribute(method, type));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Startup {
+
+        @Param({"false", "true"})
+        boolean index;
+
+        Path indexFile;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            indexFile = Files.createTempFile("transaction-attributes", ".properties");
+            indexFile.toFile().deleteOnExit();
+            try (Writer writer = Files.newBufferedWriter(indexFile)) {
+                new TransactionAttributeIndexGenerator(ClassUtils.getDefaultClassLoader()).generate("hello.springtx").write(writer);
+            }
+        }
+
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public void startup(Startup startup) {
+        ConfigurableApplicationContext context = BenchmarkContext.start(
+                "--springtx.tx.attribute-index.enabled=" + startup.index,
+                "--springtx.tx.attribute-index.location=" + startup.indexFile.toUri());
+        context.close();
+    }
+
+}
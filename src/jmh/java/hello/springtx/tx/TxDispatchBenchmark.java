@@ -0,0 +1,135 @@
+package hello.springtx.tx;
+
+import hello.springtx.BenchmarkContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Transactional 메서드 호출당 디스패치 비용: CGLIB 프록시 vs AspectJ 로드 타임 위빙 (springtx.tx.mode=aspectj)
+ * 트랜잭션 매니저 비용이 측정값을 덮지 않도록 SUPPORTS(물리 트랜잭션 없음)로 호출한다
+ * - proxy: 프록시를 거쳐서 internal() 호출
+ * - proxySplit: 내부 호출 대신 별도 빈으로 분리한 internal() 호출 (InternalCallV2Test 방식, 빈 한 단계 + 프록시)
+ * - woven: 위빙된 internal() 직접 호출
+ * - wovenSelfCall: external() 에서 this.internal() 호출 (프록시 모드에서는 트랜잭션이 적용되지 않는 호출)
+ *
+ * 위빙 벤치마크는 에이전트를 붙인 JVM 에서 실행한다 (jmh 태스크가 build/aspectj 로 에이전트를 복사한다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TxDispatchBenchmark {
+
+    ConfigurableApplicationContext context;
+    DispatchService dispatchService;
+    SplitCallService splitCallService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(context -> {
+            GenericApplicationContext registry = (GenericApplicationContext) context;
+            registry.registerBean(DispatchService.class);
+            registry.registerBean(InternalService.class);
+            registry.registerBean(SplitCallService.class);
+        });
+        dispatchService = context.getBean(DispatchService.class);
+        splitCallService = context.getBean(SplitCallService.class);
+        String mode = context.getEnvironment().getProperty("springtx.tx.mode", "proxy");
+        if (!dispatchService.internal() || dispatchService.external() != mode.equals("aspectj")) {
+            throw new IllegalStateException("트랜잭션 적용 방식이 예상과 다릅니다. mode=" + mode);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean proxy() {
+        return dispatchService.internal();
+    }
+
+    @Benchmark
+    public boolean proxySplit() {
+        return splitCallService.external();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-javaagent:build/aspectj/aspectjweaver.jar",
+            "-Dorg.aspectj.weaver.loadtime.configuration=META-INF/springtx-aop.xml",
+            "--add-opens=java.base/java.lang=ALL-UNNAMED",
+            "-Dspringtx.tx.mode=aspectj"})
+    public boolean woven() {
+        return dispatchService.internal();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {
+            "-javaagent:build/aspectj/aspectjweaver.jar",
+            "-Dorg.aspectj.weaver.loadtime.configuration=META-INF/springtx-aop.xml",
+            "--add-opens=java.base/java.lang=ALL-UNNAMED",
+            "-Dspringtx.tx.mode=aspectj"})
+    public boolean wovenSelfCall() {
+        return dispatchService.external();
+    }
+
+    public static class DispatchService {
+
+        /**
+         * 프록시 모드에서는 내부 호출이라 트랜잭션 동기화가 없다 (false)
+         */
+        public boolean external() {
+            return internal();
+        }
+
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public boolean internal() {
+            return TransactionSynchronizationManager.isSynchronizationActive();
+        }
+
+    }
+
+    public static class InternalService {
+
+        @Transactional(propagation = Propagation.SUPPORTS)
+        public boolean internal() {
+            return TransactionSynchronizationManager.isSynchronizationActive();
+        }
+
+    }
+
+    public static class SplitCallService {
+
+        private final InternalService internalService;
+
+        public SplitCallService(InternalService internalService) {
+            this.internalService = internalService;
+        }
+
+        public boolean external() {
+            return internalService.internal();
+        }
+
+    }
+
+}
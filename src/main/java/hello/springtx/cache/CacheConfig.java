@@ -0,0 +1,35 @@
+package hello.springtx.cache;
+
+import hello.springtx.order.CachedOrder;
+import hello.springtx.propagation.CachedMember;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * springtx.cache.enabled=true
+ * MemberRepository.find, OrderService.findOrder 조회 결과를 트랜잭션 커밋 후에만 캐시한다
+ * 엔티티 대신 불변 스냅샷(CachedMember, CachedOrder)을 캐시하고, version 이 더 오래된 값으로 덮어쓰지 않는다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.cache.enabled", havingValue = "true")
+public class CacheConfig {
+
+    @Bean
+    public TransactionalCache<String, CachedMember> memberCache(
+            @Value("${springtx.cache.member.maximum-size:10000}") int maximumSize,
+            @Value("${springtx.cache.member.eviction:lru}") String eviction) {
+        return new TransactionalCache<>(LocalCache.create("member", maximumSize, EvictionPolicy.valueOf(eviction.toUpperCase())),
+                CachedMember.VERSION_ORDER);
+    }
+
+    @Bean
+    public TransactionalCache<Long, CachedOrder> orderCache(
+            @Value("${springtx.cache.order.maximum-size:10000}") int maximumSize,
+            @Value("${springtx.cache.order.eviction:lfu}") String eviction) {
+        return new TransactionalCache<>(LocalCache.create("order", maximumSize, EvictionPolicy.valueOf(eviction.toUpperCase())),
+                CachedOrder.VERSION_ORDER);
+    }
+
+}
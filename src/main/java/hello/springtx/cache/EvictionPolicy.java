@@ -0,0 +1,12 @@
+package hello.springtx.cache;
+
+public enum EvictionPolicy {
+    /**
+     * 가장 오래 전에 사용한 항목을 제거한다
+     */
+    LRU,
+    /**
+     * 가장 적게 사용한 항목을 제거한다. 사용 횟수가 같으면 가장 오래 전에 사용한 항목을 제거한다
+     */
+    LFU
+}
@@ -0,0 +1,121 @@
+package hello.springtx.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * 사용 횟수별로 키를 묶어서(frequency -> 키 집합) 조회/저장/제거를 O(1)로 처리한다
+ * 같은 사용 횟수 안에서는 먼저 들어온 키부터 제거한다
+ */
+class LfuCache<K, V> extends LocalCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new HashMap<>();
+    private final Map<Integer, LinkedHashSet<K>> frequencies = new HashMap<>();
+    private int minFrequency;
+
+    LfuCache(String name, int maximumSize) {
+        super(name, maximumSize);
+    }
+
+    @Override
+    protected V doGet(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        touch(key, entry);
+        return entry.value;
+    }
+
+    @Override
+    protected V doPeek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    @Override
+    protected boolean doPut(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.value = value;
+            touch(key, entry);
+            return false;
+        }
+
+        boolean evicted = false;
+        if (entries.size() >= getMaximumSize()) {
+            evictLeastFrequent();
+            evicted = true;
+        }
+        entries.put(key, new Entry<>(value));
+        frequencies.computeIfAbsent(1, f -> new LinkedHashSet<>()).add(key);
+        minFrequency = 1;
+        return evicted;
+    }
+
+    @Override
+    protected void doRemove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            removeFromFrequency(key, entry.frequency);
+        }
+    }
+
+    @Override
+    protected void doClear() {
+        entries.clear();
+        frequencies.clear();
+        minFrequency = 0;
+    }
+
+    @Override
+    protected int doSize() {
+        return entries.size();
+    }
+
+    private void touch(K key, Entry<V> entry) {
+        int frequency = entry.frequency;
+        removeFromFrequency(key, frequency);
+        if (frequency == minFrequency && !frequencies.containsKey(frequency)) {
+            minFrequency++;
+        }
+        entry.frequency = frequency + 1;
+        frequencies.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    private void evictLeastFrequent() {
+        if (!frequencies.containsKey(minFrequency)) {
+            // evict()로 최소 사용 횟수의 키가 모두 제거된 경우
+            minFrequency = frequencies.keySet().stream().min(Integer::compare).orElseThrow();
+        }
+        Iterator<K> keys = frequencies.get(minFrequency).iterator();
+        K key = keys.next();
+        keys.remove();
+        if (!keys.hasNext()) {
+            frequencies.remove(minFrequency);
+        }
+        entries.remove(key);
+    }
+
+    private void removeFromFrequency(K key, int frequency) {
+        LinkedHashSet<K> keys = frequencies.get(frequency);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            frequencies.remove(frequency);
+        }
+    }
+
+    private static class Entry<V> {
+
+        private V value;
+        private int frequency = 1;
+
+        Entry(V value) {
+            this.value = value;
+        }
+
+    }
+
+}
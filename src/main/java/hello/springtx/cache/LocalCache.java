@@ -0,0 +1,159 @@
+package hello.springtx.cache;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 크기가 제한된 로컬 캐시
+ * maximumSize 를 넘으면 EvictionPolicy 에 따라 하나를 제거한다
+ * 조회/저장은 짧은 임계 영역이므로 하나의 락으로 보호하고, 통계는 락 밖에서 LongAdder 로 센다
+ */
+public abstract class LocalCache<K, V> {
+
+    private final String name;
+    private final int maximumSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder putCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    protected LocalCache(String name, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize는 0보다 커야 합니다. maximumSize=" + maximumSize);
+        }
+        this.name = name;
+        this.maximumSize = maximumSize;
+    }
+
+    public static <K, V> LocalCache<K, V> create(String name, int maximumSize, EvictionPolicy policy) {
+        switch (policy) {
+            case LRU:
+                return new LruCache<>(name, maximumSize);
+            case LFU:
+                return new LfuCache<>(name, maximumSize);
+            default:
+                throw new IllegalArgumentException("지원하지 않는 정책입니다. policy=" + policy);
+        }
+    }
+
+    public Optional<V> get(K key) {
+        V value;
+        synchronized (this) {
+            value = doGet(key);
+        }
+        if (value == null) {
+            missCount.increment();
+            return Optional.empty();
+        }
+        hitCount.increment();
+        return Optional.of(value);
+    }
+
+    public void put(K key, V value) {
+        boolean evicted;
+        synchronized (this) {
+            evicted = doPut(key, value);
+        }
+        putCount.increment();
+        if (evicted) {
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * 캐시에 있는 값이 value 보다 최신이면(versionOrder 로 비교해서 더 크면) 바꾸지 않는다
+     * 오래된 값을 읽은 트랜잭션이 늦게 커밋되어도 먼저 커밋된 최신 값을 덮어쓰지 않는다
+     * @return 저장했으면 true
+     */
+    public boolean putIfNotOlder(K key, V value, Comparator<? super V> versionOrder) {
+        boolean evicted;
+        synchronized (this) {
+            V current = doPeek(key);
+            if (current != null && versionOrder.compare(current, value) > 0) {
+                return false;
+            }
+            evicted = doPut(key, value);
+        }
+        putCount.increment();
+        if (evicted) {
+            evictionCount.increment();
+        }
+        return true;
+    }
+
+    public void evict(K key) {
+        synchronized (this) {
+            doRemove(key);
+        }
+    }
+
+    public synchronized void clear() {
+        doClear();
+    }
+
+    public synchronized int size() {
+        return doSize();
+    }
+
+    /**
+     * 조회한 항목의 사용 기록(순서, 횟수)을 갱신한다
+     * @return 없으면 null
+     */
+    protected abstract V doGet(K key);
+
+    /**
+     * 저장 전에 현재 값을 확인한다 (사용 횟수는 세지 않는다)
+     * @return 없으면 null
+     */
+    protected abstract V doPeek(K key);
+
+    /**
+     * @return 크기 제한을 넘어서 다른 항목을 제거했으면 true
+     */
+    protected abstract boolean doPut(K key, V value);
+
+    protected abstract void doRemove(K key);
+
+    protected abstract void doClear();
+
+    protected abstract int doSize();
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public double getHitRatio() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getPutCount() {
+        return putCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[name=" + name + ", size=" + size() + "/" + maximumSize
+                + ", hit=" + getHitCount() + ", miss=" + getMissCount() + ", eviction=" + getEvictionCount() + "]";
+    }
+
+}
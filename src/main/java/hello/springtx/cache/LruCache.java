@@ -0,0 +1,56 @@
+package hello.springtx.cache;
+
+import java.util.LinkedHashMap;
+
+/**
+ * 접근 순서를 유지하는 LinkedHashMap 으로 가장 오래 전에 사용한 항목을 제거한다
+ */
+class LruCache<K, V> extends LocalCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+
+    LruCache(String name, int maximumSize) {
+        super(name, maximumSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    protected V doGet(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 접근 순서 LinkedHashMap 은 get 도 순서를 바꾸지만, 바로 뒤에 put 이 오면 어차피 가장 최근 항목이 된다
+     */
+    @Override
+    protected V doPeek(K key) {
+        return entries.get(key);
+    }
+
+    @Override
+    protected boolean doPut(K key, V value) {
+        entries.put(key, value);
+        if (entries.size() <= getMaximumSize()) {
+            return false;
+        }
+        K eldest = entries.keySet().iterator().next();
+        entries.remove(eldest);
+        return true;
+    }
+
+    @Override
+    protected void doRemove(K key) {
+        entries.remove(key);
+    }
+
+    @Override
+    protected void doClear() {
+        entries.clear();
+    }
+
+    @Override
+    protected int doSize() {
+        return entries.size();
+    }
+
+}
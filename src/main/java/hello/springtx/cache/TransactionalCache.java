@@ -0,0 +1,172 @@
+package hello.springtx.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 안에서의 put/evict 는 트랜잭션별 write set 에 모아 두었다가 커밋된 후(afterCommit)에만 LocalCache 에 반영한다
+ * 롤백되면 write set 을 버리므로 롤백된 데이터가 다른 스레드에 보이지 않는다
+ * - 트랜잭션 안의 get 은 write set 을 먼저 확인한다 (자신이 쓴 값은 바로 보인다)
+ * - REQUIRES_NEW 로 외부 트랜잭션이 보류되면 write set 도 같이 보류된다 (내부 트랜잭션은 별도의 write set)
+ * - 트랜잭션 동기화가 없으면 바로 반영한다
+ *
+ * 값은 put 시점의 불변 스냅샷이어야 한다 (엔티티를 그대로 넣으면 커밋 없이 바꾼 값이 다른 스레드에 보인다)
+ * versionOrder 가 있으면 캐시에 있는 값보다 오래된 값은 반영하지 않는다 (stale write)
+ */
+@Slf4j
+public class TransactionalCache<K, V> {
+
+    private final LocalCache<K, V> cache;
+    private final Comparator<? super V> versionOrder;
+
+    private final LongAdder committedWriteCount = new LongAdder();
+    private final LongAdder discardedWriteCount = new LongAdder();
+    private final LongAdder staleWriteCount = new LongAdder();
+
+    public TransactionalCache(LocalCache<K, V> cache) {
+        this(cache, null);
+    }
+
+    public TransactionalCache(LocalCache<K, V> cache, Comparator<? super V> versionOrder) {
+        this.cache = cache;
+        this.versionOrder = versionOrder;
+    }
+
+    public Optional<V> get(K key) {
+        WriteSet<K, V> writeSet = currentWriteSet(false);
+        if (writeSet != null && writeSet.contains(key)) {
+            return Optional.ofNullable(writeSet.get(key));
+        }
+        return cache.get(key);
+    }
+
+    public void put(K key, V value) {
+        WriteSet<K, V> writeSet = currentWriteSet(true);
+        if (writeSet == null) {
+            apply(key, value);
+        } else {
+            writeSet.put(key, value);
+        }
+    }
+
+    public void evict(K key) {
+        WriteSet<K, V> writeSet = currentWriteSet(true);
+        if (writeSet == null) {
+            cache.evict(key);
+        } else {
+            writeSet.put(key, null);
+        }
+    }
+
+    private void apply(K key, V value) {
+        if (versionOrder == null) {
+            cache.put(key, value);
+        } else if (!cache.putIfNotOlder(key, value, versionOrder)) {
+            staleWriteCount.increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private WriteSet<K, V> currentWriteSet(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        WriteSet<K, V> writeSet = (WriteSet<K, V>) TransactionSynchronizationManager.getResource(this);
+        if (writeSet == null && create) {
+            writeSet = new WriteSet<>();
+            TransactionSynchronizationManager.bindResource(this, writeSet);
+            TransactionSynchronizationManager.registerSynchronization(new WriteSetSynchronization(writeSet));
+        }
+        return writeSet;
+    }
+
+    public LocalCache<K, V> getCache() {
+        return cache;
+    }
+
+    public long getCommittedWriteCount() {
+        return committedWriteCount.sum();
+    }
+
+    public long getDiscardedWriteCount() {
+        return discardedWriteCount.sum();
+    }
+
+    public long getStaleWriteCount() {
+        return staleWriteCount.sum();
+    }
+
+    /**
+     * value 가 null 이면 evict
+     */
+    private static class WriteSet<K, V> {
+
+        private final Map<K, V> writes = new LinkedHashMap<>();
+
+        boolean contains(K key) {
+            return writes.containsKey(key);
+        }
+
+        V get(K key) {
+            return writes.get(key);
+        }
+
+        void put(K key, V value) {
+            writes.put(key, value);
+        }
+
+        int size() {
+            return writes.size();
+        }
+
+    }
+
+    private class WriteSetSynchronization implements TransactionSynchronization {
+
+        private final WriteSet<K, V> writeSet;
+
+        WriteSetSynchronization(WriteSet<K, V> writeSet) {
+            this.writeSet = writeSet;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TransactionalCache.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TransactionalCache.this, writeSet);
+        }
+
+        @Override
+        public void afterCommit() {
+            writeSet.writes.forEach((key, value) -> {
+                if (value == null) {
+                    cache.evict(key);
+                } else {
+                    apply(key, value);
+                }
+            });
+            committedWriteCount.add(writeSet.size());
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionalCache.this);
+            if (status != STATUS_COMMITTED) {
+                log.debug("트랜잭션이 커밋되지 않아 캐시 write set을 버립니다. cache={}, size={}", cache.getName(), writeSet.size());
+                discardedWriteCount.add(writeSet.size());
+            }
+        }
+
+    }
+
+}
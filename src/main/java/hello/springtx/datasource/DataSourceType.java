@@ -0,0 +1,8 @@
+package hello.springtx.datasource;
+
+public enum DataSourceType {
+
+    PRIMARY, // 쓰기, 읽기-쓰기 트랜잭션
+    REPLICA  // readOnly = true 트랜잭션
+
+}
@@ -0,0 +1,71 @@
+package hello.springtx.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 트랜잭션 시작 시점에는 커넥션 프록시만 반환하고, 실제 커넥션은 첫 SQL 실행 시점에 풀에서 획득한다
+ * setAutoCommit(false), setReadOnly() 같은 트랜잭션 설정도 그때 적용된다
+ * SQL을 한 번도 실행하지 않는 트랜잭션은 커넥션 풀을 전혀 사용하지 않는다
+ *
+ * logical: 트랜잭션 매니저, JPA가 요청한 커넥션 수
+ * physical: 실제로 커넥션 풀에서 획득한 커넥션 수
+ */
+public class LazyConnectionDataSource extends LazyConnectionDataSourceProxy {
+
+    private final AtomicLong logicalConnections = new AtomicLong();
+    private final AtomicLong physicalConnections = new AtomicLong();
+
+    public LazyConnectionDataSource(DataSource targetDataSource) {
+        super();
+        setTargetDataSource(new DelegatingDataSource(targetDataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                physicalConnections.incrementAndGet();
+                return super.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                physicalConnections.incrementAndGet();
+                return super.getConnection(username, password);
+            }
+        });
+        afterPropertiesSet();
+        // 기본 autoCommit, 격리수준을 확인하려고 획득한 커넥션은 제외한다
+        physicalConnections.set(0);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        logicalConnections.incrementAndGet();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        logicalConnections.incrementAndGet();
+        return super.getConnection(username, password);
+    }
+
+    public long getLogicalConnectionCount() {
+        return logicalConnections.get();
+    }
+
+    public long getPhysicalConnectionCount() {
+        return physicalConnections.get();
+    }
+
+    /**
+     * 커넥션을 요청했지만 SQL을 실행하지 않아서 풀에서 획득하지 않은 횟수
+     */
+    public long getAvoidedConnectionCount() {
+        return logicalConnections.get() - physicalConnections.get();
+    }
+
+}
@@ -0,0 +1,34 @@
+package hello.springtx.datasource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 스프링 부트가 등록한 DataSource를 LazyConnectionDataSource로 감싼다
+ * springtx.datasource.lazy-connection.enabled=true
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.datasource.lazy-connection.enabled", havingValue = "true")
+public class LazyConnectionDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // 라우팅 모드의 dataSource는 이미 지연 프록시다
+                if (bean instanceof DataSource && beanName.equals("dataSource")
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new LazyConnectionDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,42 @@
+package hello.springtx.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 현재 트랜잭션이 readOnly 이면 replica, 아니면 primary 커넥션을 사용한다
+ *
+ * readOnly 여부는 트랜잭션 매니저가 커넥션을 획득한 "뒤에" 트랜잭션 동기화 매니저에 등록된다
+ * 따라서 반드시 LazyConnectionDataSourceProxy로 감싸서 실제 커넥션 획득을 첫 SQL 실행 시점으로 미뤄야 한다
+ */
+public class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<DataSourceType, AtomicLong> connectionCounts = new EnumMap<>(DataSourceType.class);
+
+    public ReadOnlyRoutingDataSource() {
+        for (DataSourceType type : DataSourceType.values()) {
+            connectionCounts.put(type, new AtomicLong());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        DataSourceType type = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? DataSourceType.REPLICA
+                : DataSourceType.PRIMARY;
+        connectionCounts.get(type).incrementAndGet();
+        return type;
+    }
+
+    /**
+     * 지금까지 해당 DataSource에서 커넥션을 획득한 횟수
+     */
+    public long getConnectionCount(DataSourceType type) {
+        return connectionCounts.get(type).get();
+    }
+
+}
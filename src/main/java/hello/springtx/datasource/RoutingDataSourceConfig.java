@@ -0,0 +1,52 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.Map;
+
+/**
+ * readOnly 트랜잭션은 replica, 나머지는 primary 커넥션 풀을 사용한다
+ *
+ * springtx.datasource.routing.enabled=true
+ * springtx.datasource.primary.jdbc-url=...
+ * springtx.datasource.replica.jdbc-url=...
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.datasource.routing.enabled", havingValue = "true")
+public class RoutingDataSourceConfig {
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("springtx.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("springtx.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadOnlyRoutingDataSource routingDataSource() {
+        ReadOnlyRoutingDataSource routingDataSource = new ReadOnlyRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                DataSourceType.PRIMARY, primaryDataSource(),
+                DataSourceType.REPLICA, replicaDataSource()));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource());
+        return routingDataSource;
+    }
+
+    @Bean
+    @Primary
+    public LazyConnectionDataSource dataSource() {
+        return new LazyConnectionDataSource(routingDataSource());
+    }
+
+}
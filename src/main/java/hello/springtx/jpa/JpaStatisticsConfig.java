@@ -0,0 +1,31 @@
+package hello.springtx.jpa;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * springtx.jpa.statistics.enabled=true
+ * 하이버네이트 통계를 켜고 쿼리 플랜 캐시 적중률, PreparedStatement 수를 QueryStatistics 로 조회한다
+ * 통계 수집은 모든 세션에서 카운터를 갱신하므로 기본은 꺼져 있다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.jpa.statistics.enabled", havingValue = "true")
+public class JpaStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statisticsCustomizer() {
+        return properties -> properties.put(AvailableSettings.GENERATE_STATISTICS, "true");
+    }
+
+    @Bean
+    public QueryStatistics queryStatistics(EntityManagerFactory entityManagerFactory) {
+        return new QueryStatistics(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+
+}
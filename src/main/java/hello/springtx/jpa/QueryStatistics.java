@@ -0,0 +1,30 @@
+package hello.springtx.jpa;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * 하이버네이트 쿼리 통계 조회
+ * - 쿼리 플랜 캐시: JPQL 파싱 결과(HQLQueryPlan) 캐시, named query 는 시작 시점에 미리 올라간다
+ * - PreparedStatement 수: 커넥션에서 prepareStatement 를 호출한 횟수
+ */
+public class QueryStatistics {
+
+    private final Statistics statistics;
+
+    public QueryStatistics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public QueryStatisticsSnapshot snapshot() {
+        return new QueryStatisticsSnapshot(
+                statistics.getQueryPlanCacheHitCount(),
+                statistics.getQueryPlanCacheMissCount(),
+                statistics.getQueryExecutionCount(),
+                statistics.getPrepareStatementCount());
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+}
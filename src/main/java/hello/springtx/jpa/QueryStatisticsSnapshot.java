@@ -0,0 +1,30 @@
+package hello.springtx.jpa;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class QueryStatisticsSnapshot {
+
+    private final long queryPlanCacheHits;
+    private final long queryPlanCacheMisses;
+    private final long queryExecutions;
+    private final long preparedStatements;
+
+    public double getQueryPlanCacheHitRate() {
+        long total = queryPlanCacheHits + queryPlanCacheMisses;
+        return total == 0 ? 0 : (double) queryPlanCacheHits / total;
+    }
+
+    public QueryStatisticsSnapshot minus(QueryStatisticsSnapshot before) {
+        return new QueryStatisticsSnapshot(
+                queryPlanCacheHits - before.queryPlanCacheHits,
+                queryPlanCacheMisses - before.queryPlanCacheMisses,
+                queryExecutions - before.queryExecutions,
+                preparedStatements - before.preparedStatements);
+    }
+
+}
@@ -0,0 +1,48 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Comparator;
+
+/**
+ * orderCache 에 넣는 커밋된 주문의 불변 스냅샷
+ * 캐시에서 찾으면 toOrder() 로 매번 새 객체를 만들어 반환하므로, 반환된 주문을 바꿔도 캐시는 바뀌지 않는다
+ */
+@Getter
+@ToString
+public class CachedOrder {
+
+    // version 이 없으면(아직 저장되지 않은 값) 가장 오래된 값으로 본다
+    public static final Comparator<CachedOrder> VERSION_ORDER =
+            Comparator.comparing(CachedOrder::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Long id;
+    private final String username;
+    private final String payStatus;
+    private final Long version;
+
+    private CachedOrder(Long id, String username, String payStatus, Long version) {
+        this.id = id;
+        this.username = username;
+        this.payStatus = payStatus;
+        this.version = version;
+    }
+
+    public static CachedOrder of(Order order) {
+        return new CachedOrder(order.getId(), order.getUsername(), order.getPayStatus(), order.getVersion());
+    }
+
+    /**
+     * 영속성 컨텍스트에 없는 준영속 주문, 결제 상태 변경은 OrderService.changePayStatus 로 한다
+     */
+    public Order toOrder() {
+        Order order = new Order();
+        order.setId(id);
+        order.setUsername(username);
+        order.setPayStatus(payStatus);
+        order.setVersion(version);
+        return order;
+    }
+
+}
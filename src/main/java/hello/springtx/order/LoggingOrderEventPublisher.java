@@ -0,0 +1,19 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Slf4j
+@Component
+public class LoggingOrderEventPublisher implements OrderEventPublisher {
+
+    @Override
+    public void publish(List<OrderOutbox> events) {
+        for (OrderOutbox event : events) {
+            log.info("주문 이벤트 발행 orderId={}, payStatus={}", event.getOrderId(), event.getPayStatus());
+        }
+    }
+
+}
@@ -7,10 +7,13 @@ public class NotEnoughMoneyException extends Exception {
      * 이 예외가 발생할때는 롤백을 안하고 싶다
      * 롤백을 하지 않고 주문 데이터를 저장(커밋)을 할 것이다
      * 왜냐 ? 시스템적인 문제가 아니라 비즈니스 상황이 예외인 것이기 때문
+     *
+     * 장애가 아니라 결과를 알리는 예외라서 스택 트레이스를 만들지 않는다
+     * 스택 트레이스는 생성자에서 호출 스택 전체(트랜잭션 AOP, 재시도 AOP 포함)를 채우므로 잔고 부족이 몰리면 비용이 크다
      */
 
     public NotEnoughMoneyException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
 }
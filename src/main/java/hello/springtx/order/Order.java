@@ -2,24 +2,35 @@ package hello.springtx.order;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
+// 낙관적 락: update ... where id = ? and version = ? 로 다른 트랜잭션이 먼저 바꾼 주문을 덮어쓰지 않는다
+// 변경된 컬럼만 update 한다 (결제 상태 변경은 pay_status, version 만 바뀐다)
 @Entity
 @Table(name = "orders")
+@DynamicUpdate
 @Getter
 @Setter
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq_generator")
+    @SequenceGenerator(name = "orders_seq_generator", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     private String username; //정상, 예외, 잔고부족
 
     private String payStatus; //대기, 완료
 
+    @Version
+    private Long version; // null 이면 새 주문 (Spring Data 가 persist 할지 merge 할지 판단한다)
+
 }
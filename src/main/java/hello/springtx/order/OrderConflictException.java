@@ -0,0 +1,22 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * 다른 트랜잭션이 먼저 주문을 변경해서 이 트랜잭션의 변경을 반영할 수 없을 때 발생한다 (낙관적 락 충돌)
+ * 주문을 다시 읽어서 처리하면 성공할 수 있는 일시적인 실패다 (@RetryableTransaction 은 다시 실행한다)
+ */
+@Getter
+public class OrderConflictException extends OptimisticLockingFailureException {
+
+    private final Long orderId;
+    private final Long expectedVersion;
+
+    public OrderConflictException(Long orderId, Long expectedVersion, Throwable cause) {
+        super("다른 트랜잭션이 주문을 먼저 변경했습니다. orderId=" + orderId + ", version=" + expectedVersion, cause);
+        this.orderId = orderId;
+        this.expectedVersion = expectedVersion;
+    }
+
+}
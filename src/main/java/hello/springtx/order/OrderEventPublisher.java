@@ -0,0 +1,13 @@
+package hello.springtx.order;
+
+import java.util.List;
+
+/**
+ * 커밋된 주문 이벤트를 외부 시스템으로 발행한다
+ * 예외가 발생하면 해당 배치는 다시 발행 대상이 된다 (at-least-once)
+ */
+public interface OrderEventPublisher {
+
+    void publish(List<OrderOutbox> events);
+
+}
@@ -0,0 +1,54 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 결제 상태 변경 이벤트
+ * Order와 같은 트랜잭션에서 저장되므로 주문이 롤백되면 이벤트도 남지 않는다
+ */
+@Entity
+@Table(name = "order_outbox", indexes = @Index(name = "idx_order_outbox_claimed_by", columnList = "claimedBy"))
+@Getter
+public class OrderOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq_generator")
+    @SequenceGenerator(name = "order_outbox_seq_generator", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    private Long orderId;
+
+    private String username;
+
+    private String payStatus; //대기, 완료
+
+    private LocalDateTime createdAt;
+
+    private String claimedBy; // 발행을 가져간 poller
+
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime publishedAt;
+
+    protected OrderOutbox() {
+    }
+
+    public static OrderOutbox of(Order order) {
+        OrderOutbox outbox = new OrderOutbox();
+        outbox.orderId = order.getId();
+        outbox.username = order.getUsername();
+        outbox.payStatus = order.getPayStatus();
+        outbox.createdAt = LocalDateTime.now();
+        return outbox;
+    }
+
+}
@@ -0,0 +1,137 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * order_outbox 에 커밋된 이벤트를 batchSize 단위로 가져가서 발행한다
+ * 1. 선점: claimed_by 에 이번 poll 의 토큰을 기록하고 바로 커밋한다 (짧은 트랜잭션)
+ * 2. 발행: 트랜잭션 밖에서 OrderEventPublisher 호출
+ * 3. 완료: published_at 기록, 발행에 실패하면 선점을 풀어서 다음 poll 에서 다시 발행한다
+ * 여러 노드의 poller 가 동시에 실행되어도 같은 이벤트를 나눠 갖지 않고, 서로의 발행을 기다리지 않는다
+ */
+@Slf4j
+@Component
+public class OrderOutboxPoller {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderEventPublisher publisher;
+    private final TransactionTemplate txTemplate;
+    private final String nodeId;
+    private final int batchSize;
+    private final Duration lease;
+    private final boolean enabled;
+    private final long intervalMillis;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public OrderOutboxPoller(OrderOutboxRepository outboxRepository,
+                             OrderEventPublisher publisher,
+                             PlatformTransactionManager txManager,
+                             @Value("${springtx.outbox.node-id:${random.uuid}}") String nodeId,
+                             @Value("${springtx.outbox.batch-size:100}") int batchSize,
+                             @Value("${springtx.outbox.lease-ms:60000}") long leaseMillis,
+                             @Value("${springtx.outbox.poller.enabled:false}") boolean enabled,
+                             @Value("${springtx.outbox.poller.interval-ms:1000}") long intervalMillis) {
+        this.outboxRepository = outboxRepository;
+        this.publisher = publisher;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 발행할 이벤트가 없을 때까지 반복한다
+     */
+    public void pollAll() {
+        try {
+            while (pollOnce() > 0) {
+                log.debug("order outbox 발행 계속");
+            }
+        } catch (RuntimeException e) {
+            log.error("order outbox 발행 실패", e);
+        }
+    }
+
+    /**
+     * @return 이번에 발행한 이벤트 수
+     */
+    public int pollOnce() {
+        String token = nodeId + ":" + UUID.randomUUID();
+        List<OrderOutbox> events = claim(token);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            publisher.publish(events);
+        } catch (RuntimeException e) {
+            log.warn("주문 이벤트 발행 실패, 선점을 해제합니다. size={}", events.size(), e);
+            txTemplate.executeWithoutResult(status -> outboxRepository.release(token));
+            throw e;
+        }
+
+        txTemplate.executeWithoutResult(status -> outboxRepository.markPublished(token, LocalDateTime.now()));
+        publishedCount.addAndGet(events.size());
+        return events.size();
+    }
+
+    private List<OrderOutbox> claim(String token) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            txTemplate.executeWithoutResult(status ->
+                    outboxRepository.claim(token, now, now.minus(lease), batchSize));
+        } catch (ConcurrencyFailureException e) {
+            // 다른 poller 와 같은 행을 동시에 선점하려고 했다. 이번에는 건너뛰고 다음 poll 에서 다시 시도한다
+            log.debug("order outbox 선점 충돌 token={}", token);
+            return List.of();
+        }
+        return outboxRepository.findByClaimedByAndPublishedAtIsNullOrderById(token);
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+}
@@ -0,0 +1,40 @@
+package hello.springtx.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+
+    /**
+     * 아직 아무도 가져가지 않았거나, 임대 시간(leaseExpiredAt)이 지나도록 발행되지 않은 이벤트를 limit 개 선점한다
+     * 행을 잠그고 기다리는 SELECT ... FOR UPDATE 대신 claimed_by 컬럼을 한 번의 UPDATE로 바꾼다
+     * 다른 poller 가 먼저 선점한 행은 바깥 조건에서 다시 걸러지므로 같은 행을 두 poller 가 가져가지 않는다
+     */
+    @Modifying
+    @Query(value = "update order_outbox set claimed_by = :token, claimed_at = :now " +
+            "where id in (select id from order_outbox " +
+            "where published_at is null and (claimed_by is null or claimed_at < :leaseExpiredAt) " +
+            "order by id limit :limit) " +
+            "and published_at is null and (claimed_by is null or claimed_at < :leaseExpiredAt)", nativeQuery = true)
+    int claim(@Param("token") String token, @Param("now") LocalDateTime now,
+              @Param("leaseExpiredAt") LocalDateTime leaseExpiredAt, @Param("limit") int limit);
+
+    List<OrderOutbox> findByClaimedByAndPublishedAtIsNullOrderById(String claimedBy);
+
+    @Modifying
+    @Query("update OrderOutbox o set o.publishedAt = :now where o.claimedBy = :token and o.publishedAt is null")
+    int markPublished(@Param("token") String token, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update OrderOutbox o set o.claimedBy = null, o.claimedAt = null " +
+            "where o.claimedBy = :token and o.publishedAt is null")
+    int release(@Param("token") String token);
+
+    long countByPublishedAtIsNull();
+
+}
@@ -0,0 +1,9 @@
+package hello.springtx.order;
+
+public enum OrderOutcome {
+
+    COMPLETED, // 정상 승인, payStatus = 완료
+    PENDING,   // 잔고 부족, payStatus = 대기 (커밋)
+    FAILED     // 시스템 예외 (롤백, 저장되지 않음)
+
+}
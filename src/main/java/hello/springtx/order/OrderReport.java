@@ -0,0 +1,26 @@
+package hello.springtx.order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * orderAll()의 주문별 처리 결과 모음
+ */
+public class OrderReport {
+
+    private final List<OrderResult> results = new ArrayList<>();
+
+    void add(OrderResult result) {
+        results.add(result);
+    }
+
+    public List<OrderResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    public long count(OrderOutcome outcome) {
+        return results.stream().filter(result -> result.getOutcome() == outcome).count();
+    }
+
+}
@@ -0,0 +1,34 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+
+/**
+ * 주문 한 건의 처리 결과
+ * 대량 주문(orderAll)에서는 예외를 던지는 대신 주문마다 결과를 반환한다
+ */
+@Getter
+public class OrderResult {
+
+    private final Order order;
+    private final OrderOutcome outcome;
+    private final String message;
+
+    private OrderResult(Order order, OrderOutcome outcome, String message) {
+        this.order = order;
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    public static OrderResult completed(Order order) {
+        return new OrderResult(order, OrderOutcome.COMPLETED, null);
+    }
+
+    public static OrderResult pending(Order order, String message) {
+        return new OrderResult(order, OrderOutcome.PENDING, message);
+    }
+
+    public static OrderResult failed(Order order, String message) {
+        return new OrderResult(order, OrderOutcome.FAILED, message);
+    }
+
+}
@@ -1,9 +1,28 @@
 package hello.springtx.order;
 
+import hello.springtx.cache.TransactionalCache;
+import hello.springtx.tx.RetryableTransaction;
+import hello.springtx.tx.TransactionRetryAspect;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -11,27 +30,217 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final TransactionTemplate txTemplate;
+    private final EntityManager em;
+    private final ObjectProvider<TransactionalCache<Long, CachedOrder>> orderCache;
+
+    @Value("${springtx.order.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${springtx.order.flush-interval:${spring.jpa.properties.hibernate.jdbc.batch_size:50}}")
+    private int flushInterval;
+
+    // 청크, 건별 재처리 전용 (REQUIRES_NEW)
+    private TransactionTemplate chunkTxTemplate;
+
+    @PostConstruct
+    void initChunkTxTemplate() {
+        chunkTxTemplate = new TransactionTemplate(txTemplate.getTransactionManager());
+        chunkTxTemplate.setName(OrderService.class.getName() + ".orderAll");
+        chunkTxTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     // JPA는 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영된다
+    // 결제 상태 변경 이벤트(OrderOutbox)도 같은 트랜잭션에서 저장한다
+    // 결제 상태를 정한 다음 저장해서 insert 한 번으로 끝낸다 (저장 후에 바꾸면 flush 시점에 update 가 한 번 더 나간다)
+    // 락 충돌 같은 일시적인 실패는 트랜잭션 전체를 다시 실행한다 (NotEnoughMoneyException 은 재시도하지 않는다)
+    @RetryableTransaction
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
-        orderRepository.save(order);
+        if (TransactionRetryAspect.currentAttempt() > 1) {
+            // 이전 시도에서 할당된 id, version 은 롤백되었다
+            order.setId(null);
+            order.setVersion(null);
+        }
 
         log.info("결제 프로세스 진입");
         if (order.getUsername().equals("예외")) {
+            save(order);
             log.info("시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
         } else if (order.getUsername().equals("잔고부족")) {
             log.info("잔고 부족 비즈니스 예외");
             order.setPayStatus("대기");
+            save(order);
+            orderOutboxRepository.save(OrderOutbox.of(order));
             throw new NotEnoughMoneyException("잔고가 부족합니다.");
         } else {
             // 정상 승인
             log.info("정상 승인");
             order.setPayStatus("완료");
+            save(order);
+            orderOutboxRepository.save(OrderOutbox.of(order));
         }
         log.info("결제 프로세스 완료");
     }
 
+    /**
+     * 대기 중인 주문의 결제를 완료한다
+     * 락 없이 읽고 update 시점에 version 을 확인한다, 그 사이에 다른 트랜잭션이 주문을 바꿨으면 OrderConflictException
+     * 충돌이나 락 타임아웃이 나면 주문을 다시 읽어서 처리한다 (이미 완료되었으면 아무것도 하지 않는다)
+     */
+    @RetryableTransaction
+    @Transactional
+    public void completePayment(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("주문이 없습니다. orderId=" + orderId));
+        if ("완료".equals(order.getPayStatus())) {
+            log.info("이미 결제 완료된 주문 orderId={}", orderId);
+            return;
+        }
+        changePayStatus(order, order.getVersion(), "완료");
+    }
+
+    /**
+     * 조회했던 주문(expectedVersion)을 기준으로 결제 상태를 바꾼다
+     * 그 사이에 다른 트랜잭션이 주문을 바꿨으면 덮어쓰지 않고 OrderConflictException 이 발생한다
+     */
+    @Transactional
+    public Order changePayStatus(Long orderId, Long expectedVersion, String payStatus) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("주문이 없습니다. orderId=" + orderId));
+        return changePayStatus(order, expectedVersion, payStatus);
+    }
+
+    private Order changePayStatus(Order order, Long expectedVersion, String payStatus) {
+        if (!Objects.equals(order.getVersion(), expectedVersion)) {
+            throw new OrderConflictException(order.getId(), expectedVersion, null);
+        }
+        order.setPayStatus(payStatus);
+        try {
+            // 커밋 시점이 아니라 여기서 충돌을 확인해야 OrderConflictException 으로 바꿀 수 있다
+            orderRepository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            throw new OrderConflictException(order.getId(), expectedVersion, e);
+        }
+        orderOutboxRepository.save(OrderOutbox.of(order));
+        orderCache.ifAvailable(cache -> cache.put(order.getId(), CachedOrder.of(order)));
+        return order;
+    }
+
+    /**
+     * springtx.cache.enabled=true 이면 커밋된 주문만 orderCache 에서 먼저 찾는다
+     * 캐시에서 찾은 주문은 스냅샷으로 만든 준영속 객체다 (호출마다 새 객체, 결제 상태 변경은 changePayStatus)
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findOrder(Long id) {
+        TransactionalCache<Long, CachedOrder> cache = orderCache.getIfAvailable();
+        if (cache == null) {
+            return orderRepository.findById(id);
+        }
+        Optional<CachedOrder> cached = cache.get(id);
+        if (cached.isPresent()) {
+            return cached.map(CachedOrder::toOrder);
+        }
+        Optional<Order> order = orderRepository.findById(id);
+        order.ifPresent(o -> cache.put(id, CachedOrder.of(o)));
+        return order;
+    }
+
+    public OrderReport orderAll(List<Order> orders) {
+        OrderReport report = new OrderReport();
+        orderAll(orders.stream(), report::add);
+        return report;
+    }
+
+    /**
+     * 주문을 chunkSize 단위로 묶어서 청크마다 하나의 트랜잭션으로 커밋한다
+     * 청크 안에서는 flushInterval 건마다 flush 하고 영속성 컨텍스트를 비운다 (flush 시점의 변경 감지 비용, 메모리가 청크 크기에 비례하지 않는다)
+     * 주문 한 건의 결과는 order()와 같다
+     * - 시스템 예외: 해당 주문만 저장하지 않는다 (FAILED)
+     * - 잔고 부족: 대기 상태로 저장한다 (PENDING)
+     * 결과는 예외 대신 resultHandler로 주문마다 전달한다
+     * 청크와 건별 재처리는 항상 REQUIRES_NEW 로 실행한다
+     * 바깥 트랜잭션에 참여하면 실패한 청크가 바깥 트랜잭션을 rollback-only 로 만들고 재처리도 같은 트랜잭션에서 실패한다
+     * 그래서 바깥 트랜잭션 안에서 호출해도 청크는 독립적으로 커밋되고, 바깥 트랜잭션이 롤백되어도 되돌리지 않는다
+     */
+    public void orderAll(Stream<Order> orders, Consumer<OrderResult> resultHandler) {
+        List<Order> chunk = new ArrayList<>(chunkSize);
+        Iterator<Order> iterator = orders.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == chunkSize) {
+                orderChunk(chunk, resultHandler);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            orderChunk(chunk, resultHandler);
+        }
+    }
+
+    private void orderChunk(List<Order> chunk, Consumer<OrderResult> resultHandler) {
+        List<OrderResult> results;
+        try {
+            results = chunkTxTemplate.execute(status -> payAll(chunk));
+        } catch (RuntimeException e) {
+            // 청크 트랜잭션이 롤백되었으므로 이 청크의 주문만 건별 트랜잭션으로 다시 처리한다
+            log.warn("청크 커밋 실패, 건별로 다시 처리합니다. size={}", chunk.size(), e);
+            results = chunk.stream()
+                    .map(this::orderOne)
+                    .collect(Collectors.toList());
+        }
+        results.forEach(resultHandler);
+    }
+
+    private List<OrderResult> payAll(List<Order> chunk) {
+        List<OrderResult> results = new ArrayList<>(chunk.size());
+        for (Order order : chunk) {
+            results.add(pay(order));
+            // 마지막 주문은 커밋 시점에 flush 된다
+            if (results.size() % flushInterval == 0 && results.size() < chunk.size()) {
+                em.flush();
+                em.clear();
+            }
+        }
+        return results;
+    }
+
+    private OrderResult orderOne(Order order) {
+        order.setId(null);
+        order.setVersion(null);
+        try {
+            return chunkTxTemplate.execute(status -> pay(order));
+        } catch (RuntimeException e) {
+            log.info("시스템 예외 발생", e);
+            return OrderResult.failed(order, e.getMessage());
+        }
+    }
+
+    private OrderResult pay(Order order) {
+        if (order.getUsername().equals("예외")) {
+            log.info("시스템 예외 발생");
+            return OrderResult.failed(order, "시스템 예외");
+        } else if (order.getUsername().equals("잔고부족")) {
+            log.info("잔고 부족 비즈니스 예외");
+            order.setPayStatus("대기");
+            save(order);
+            orderOutboxRepository.save(OrderOutbox.of(order));
+            return OrderResult.pending(order, "잔고가 부족합니다.");
+        } else {
+            order.setPayStatus("완료");
+            save(order);
+            orderOutboxRepository.save(OrderOutbox.of(order));
+            return OrderResult.completed(order);
+        }
+    }
+
+    // 트랜잭션이 커밋된 후에만 캐시에 반영된다
+    private void save(Order order) {
+        orderRepository.save(order);
+        orderCache.ifAvailable(cache -> cache.put(order.getId(), CachedOrder.of(order)));
+    }
+
 }
@@ -0,0 +1,189 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그를 호출 스레드의 트랜잭션과 분리해서 비동기로 저장한다
+ * LogRepository.save()의 REQUIRES_NEW는 회원가입 한 번에 커넥션을 2개 사용하고 로그 한 건마다 커밋한다
+ * 이 모드에서는 로그를 제한된 크기의 큐에 넣고, 백그라운드 스레드가 batchSize 만큼 모아서 하나의 트랜잭션으로 저장한다
+ * 로그 저장은 별도 스레드, 별도 트랜잭션에서 일어나므로 로그 저장에 실패해도 회원 저장은 롤백되지 않는다
+ *
+ * springtx.log.async.enabled=true 일 때만 등록된다
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "springtx.log.async.enabled", havingValue = "true")
+public class AsyncLogWriter {
+
+    private final EntityManager em;
+    private final TransactionTemplate txTemplate;
+    private final BlockingQueue<Log> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Thread writer;
+
+    private volatile boolean running;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public AsyncLogWriter(EntityManager em,
+                          PlatformTransactionManager txManager,
+                          @Value("${springtx.log.async.capacity:10000}") int capacity,
+                          @Value("${springtx.log.async.batch-size:100}") int batchSize,
+                          @Value("${springtx.log.async.flush-interval-ms:200}") long flushIntervalMillis) {
+        this.em = em;
+        this.txTemplate = new TransactionTemplate(txManager);
+        this.txTemplate.setName(AsyncLogWriter.class.getName() + ".flush");
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.writer = new Thread(this::run, "async-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // 큐에 남아있는 로그는 모두 저장하고 종료한다
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 로그를 큐에 넣는다. 큐가 가득 차 있으면 기다리지 않고 false를 반환한다
+     * 호출하는 쪽에서 false를 받으면 기존 방식으로 저장할지 결정한다
+     */
+    public boolean enqueue(Log logMessage) {
+        if (queue.offer(logMessage)) {
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        log.warn("로그 큐가 가득 찼습니다. capacity={}", capacity);
+        return false;
+    }
+
+    private void run() {
+        List<Log> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Log first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("로그 writer 처리 중 예외 발생", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Log> batch) {
+        long start = System.nanoTime();
+        try {
+            txTemplate.executeWithoutResult(status -> batch.forEach(em::persist));
+            writtenCount.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // 배치 전체가 롤백되었으므로 문제가 된 로그만 버리도록 건별로 다시 저장한다
+            log.warn("로그 배치 저장 실패, 건별로 다시 저장합니다. size={}", batch.size(), e);
+            batch.forEach(this::flushOne);
+        }
+        recordFlush(batch.size(), System.nanoTime() - start);
+    }
+
+    private void flushOne(Log logMessage) {
+        logMessage.setId(null);
+        try {
+            txTemplate.executeWithoutResult(status -> em.persist(logMessage));
+            writtenCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            failedCount.incrementAndGet();
+            log.error("로그 저장 실패. logMessage = {}", logMessage.getMessage(), e);
+        }
+    }
+
+    private void recordFlush(int size, long elapsedNanos) {
+        batchCount.incrementAndGet();
+        lastBatchSize.set(size);
+        lastFlushNanos.set(elapsedNanos);
+        totalFlushNanos.addAndGet(elapsedNanos);
+        maxFlushNanos.accumulateAndGet(elapsedNanos, Math::max);
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLastBatchSize() {
+        return lastBatchSize.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getLastFlushNanos() {
+        return lastFlushNanos.get();
+    }
+
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    public long getAverageFlushNanos() {
+        long count = batchCount.get();
+        return count == 0 ? 0 : totalFlushNanos.get() / count;
+    }
+
+}
@@ -0,0 +1,44 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Comparator;
+
+/**
+ * memberCache 에 넣는 커밋된 회원의 불변 스냅샷
+ * 캐시에서 찾으면 toMember() 로 매번 새 객체를 만들어 반환하므로, 반환된 회원을 바꿔도 캐시는 바뀌지 않는다
+ */
+@Getter
+@ToString
+public class CachedMember {
+
+    // version 이 없으면(아직 저장되지 않은 값) 가장 오래된 값으로 본다
+    public static final Comparator<CachedMember> VERSION_ORDER =
+            Comparator.comparing(CachedMember::getVersion, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Long id;
+    private final String username;
+    private final Long version;
+
+    private CachedMember(Long id, String username, Long version) {
+        this.id = id;
+        this.username = username;
+        this.version = version;
+    }
+
+    public static CachedMember of(Member member) {
+        return new CachedMember(member.getId(), member.getUsername(), member.getVersion());
+    }
+
+    /**
+     * 영속성 컨텍스트에 없는 준영속 회원, 변경해도 DB 에 반영되지 않는다
+     */
+    public Member toMember() {
+        Member member = new Member(username);
+        member.setId(id);
+        member.setVersion(version);
+        return member;
+    }
+
+}
@@ -5,14 +5,25 @@ import lombok.Setter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 
 @Entity
+@NamedQuery(name = Log.FIND_BY_MESSAGE, query = "select l from Log l where l.message = :message")
+@Table(indexes = @Index(name = "idx_log_message", columnList = "message"))
 @Getter
 @Setter
 public class Log {
 
-    @Id @GeneratedValue
+    public static final String FIND_BY_MESSAGE = "Log.findByMessage";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_seq_generator")
+    @SequenceGenerator(name = "log_seq_generator", sequenceName = "log_seq", allocationSize = 50)
     private Long id;
 
     private String message;
@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.util.Optional;
 
+import static org.springframework.transaction.annotation.Propagation.NESTED;
 import static org.springframework.transaction.annotation.Propagation.REQUIRES_NEW;
 
 @Slf4j
@@ -30,10 +31,32 @@ public class LogRepository {
 
     }
 
+    /**
+     * 기존 트랜잭션의 커넥션에서 savepoint 를 만들고 저장한다 (SavepointHibernateJpaDialect)
+     * NESTED 안에서 flush 해서 DB 오류도 이 메소드에서 발생하게 한다 (외부 트랜잭션 커밋 시점으로 미루지 않는다)
+     *
+     * 애플리케이션 예외("로그예외")는 savepoint 까지만 롤백되고 외부 트랜잭션은 계속 진행할 수 있다
+     * DB 오류(제약조건 위반 등)는 하이버네이트가 트랜잭션 전체를 rollback-only 로 표시하므로 예외를 잡아도 외부 트랜잭션은 롤백된다
+     * (커밋 시점에 UnexpectedRollbackException)
+     */
+    @Transactional(propagation = NESTED)
+    public void saveNested(Log logMessage) {
+        log.info("log 저장 (NESTED)");
+        em.persist(logMessage);
+        em.flush();
+
+        if (logMessage.getMessage().contains("로그예외")) {
+            log.info("log 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
+        return em.createNamedQuery(Log.FIND_BY_MESSAGE, Log.class)
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .setMaxResults(1)
+                .getResultStream().findFirst();
     }
 
 }
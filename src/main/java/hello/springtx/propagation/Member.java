@@ -2,21 +2,48 @@ package hello.springtx.propagation;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
-
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+// 회원가입 중복 확인(MemberRepository.find)은 username 으로 조회한다
+// 2차 캐시는 cache 프로필에서만 켜진다 (application-cache.properties)
+// 낙관적 락(version)으로 동시에 수정된 회원을 덮어쓰지 않고, 변경된 컬럼만 update 한다
 @Entity
+@NamedQuery(name = Member.FIND_BY_USERNAME, query = "select m from Member m where m.username = :username")
+@Table(indexes = @Index(name = "uk_member_username", columnList = "username", unique = true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@DynamicUpdate
 @Getter
 @Setter
 public class Member {
 
-    @Id @GeneratedValue
+    // 애플리케이션 시작 시점에 한 번 파싱, 검증해서 쿼리 플랜 캐시에 올려둔다
+    public static final String FIND_BY_USERNAME = "Member.findByUsername";
+
+    // allocationSize 만큼 id를 미리 확보해서 persist 마다 시퀀스를 조회하지 않는다 (batch insert 가능)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     private Long id;
 
     private String username;
 
+    @Version
+    private Long version;
+
     protected Member() {
     }
 
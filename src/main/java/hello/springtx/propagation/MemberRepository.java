@@ -1,7 +1,10 @@
 package hello.springtx.propagation;
 
+import hello.springtx.cache.TransactionalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,18 +17,45 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final ObjectProvider<TransactionalCache<String, CachedMember>> memberCache;
 
     @Transactional
     public void save(Member member) {
         log.info("멤버 저장");
         em.persist(member);
+        memberCache.ifAvailable(cache -> cache.put(member.getUsername(), CachedMember.of(member)));
     }
 
+    /**
+     * username 은 유니크 인덱스(uk_member_username)로 조회하고 한 건만 가져온다
+     * JPQL 은 named query 로 미리 파싱되어 있다 (호출마다 파싱, 플랜 캐시 키 생성을 하지 않는다)
+     * cache 프로필에서는 쿼리 결과를 쿼리 캐시에, 회원을 2차 캐시에 저장한다
+     * member 테이블이 변경된 트랜잭션이 커밋/롤백되면 하이버네이트가 캐시된 쿼리 결과를 무효화한다
+     * springtx.cache.enabled=true 이면 커밋된 회원만 memberCache 에서 먼저 찾는다
+     * 캐시에서 찾은 회원은 스냅샷으로 만든 준영속 객체다 (호출마다 새 객체)
+     */
+    @Transactional(readOnly = true)
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
-                .setParameter("username", username)
-                .getResultList().stream().findAny();
+        TransactionalCache<String, CachedMember> cache = memberCache.getIfAvailable();
+        if (cache == null) {
+            return query(username);
+        }
+        Optional<CachedMember> cached = cache.get(username);
+        if (cached.isPresent()) {
+            return cached.map(CachedMember::toMember);
+        }
+        Optional<Member> member = query(username);
+        member.ifPresent(m -> cache.put(username, CachedMember.of(m)));
+        return member;
     }
 
+    private Optional<Member> query(String username) {
+        return em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .setHint(QueryHints.CACHEABLE, true)
+                .setHint(QueryHints.CACHE_REGION, "member-by-username")
+                .getResultList().stream().findFirst(); // getResultStream()은 쿼리 캐시를 사용하지 않는다
+    }
 
 }
@@ -2,6 +2,7 @@ package hello.springtx.propagation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,6 +13,7 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final ObjectProvider<AsyncLogWriter> asyncLogWriter;
 
     @Transactional
     public void joinV1(String username) {
@@ -46,4 +48,54 @@ public class MemberService {
         log.info("== logRepository 호출 종료 ==");
     }
 
+    /**
+     * 로그를 AsyncLogWriter 큐에 넘기고 바로 반환한다. 회원가입 한 번에 커넥션을 하나만 사용한다
+     * 비동기 모드가 꺼져 있거나 큐가 가득 찬 경우에는 joinV2와 같이 REQUIRES_NEW로 저장한다
+     */
+    @Transactional
+    public void joinV3(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("== memberRepository 호출 시작 ==");
+        memberRepository.save(member);
+        log.info("== memberRepository 호출 종료 ==");
+
+        log.info("== logRepository 호출 시작 ==");
+        AsyncLogWriter writer = asyncLogWriter.getIfAvailable();
+        if (writer == null || !writer.enqueue(logMessage)) {
+            try {
+                logRepository.save(logMessage);
+            } catch (RuntimeException e) {
+                log.info("log 저장에 실패했습니다. logMessage = {}", logMessage.getMessage());
+                log.info("정상 흐름 반환");
+            }
+        }
+        log.info("== logRepository 호출 종료 ==");
+    }
+
+    /**
+     * joinV2와 같이 로그 저장 실패를 복구하지만, 로그는 NESTED(savepoint)로 저장한다
+     * 로그 저장에 실패하면 같은 커넥션에서 savepoint 까지만 롤백하므로 회원가입 한 번에 커넥션을 하나만 사용한다
+     * 단, 로그 insert 자체가 DB 에서 실패하면 회원가입도 롤백된다 (LogRepository.saveNested 참고)
+     */
+    @Transactional
+    public void joinV4(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("== memberRepository 호출 시작 ==");
+        memberRepository.save(member);
+        log.info("== memberRepository 호출 종료 ==");
+
+        log.info("== logRepository 호출 시작 ==");
+        try {
+            logRepository.saveNested(logMessage);
+        } catch (RuntimeException e) {
+            log.info("log 저장에 실패했습니다. logMessage = {}", logMessage.getMessage());
+            log.info("정상 흐름 반환");
+        }
+        log.info("== logRepository 호출 종료 ==");
+    }
+
 }
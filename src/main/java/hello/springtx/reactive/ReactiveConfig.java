@@ -0,0 +1,55 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * springtx.reactive.enabled=true
+ * R2DBC H2 커넥션 풀과 리액티브 트랜잭션 매니저를 만든다 (ReactiveOrderService, ReactiveMemberService 가 사용한다)
+ * springtx.reactive.url 이 없으면 JPA 와 같은 in-memory H2 데이터베이스에 연결한다 (테이블은 하이버네이트가 만든다)
+ * 스프링 부트의 R2DBC 자동 설정은 application.properties 에서 제외했다 (ReactiveDatabase 참고)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ReactiveDatabase reactiveDatabase(DataSourceProperties dataSourceProperties,
+                                             @Value("${springtx.reactive.url:}") String url,
+                                             @Value("${springtx.reactive.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(
+                        StringUtils.hasText(url) ? url : toR2dbcUrl(dataSourceProperties.determineUrl()))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, dataSourceProperties.determineUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, dataSourceProperties.determinePassword())
+                .build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-pool")
+                .initialSize(poolSize)
+                .maxSize(poolSize)
+                .build());
+        return new ReactiveDatabase(pool);
+    }
+
+    /**
+     * jdbc:h2:mem:name;OPTION=... -> r2dbc:h2:mem:///name
+     */
+    static String toR2dbcUrl(String jdbcUrl) {
+        String prefix = "jdbc:h2:mem:";
+        if (jdbcUrl == null || !jdbcUrl.startsWith(prefix)) {
+            throw new IllegalStateException("in-memory H2 가 아니면 springtx.reactive.url 을 지정해야 합니다. url=" + jdbcUrl);
+        }
+        String name = jdbcUrl.substring(prefix.length());
+        int options = name.indexOf(';');
+        return "r2dbc:h2:mem:///" + (options < 0 ? name : name.substring(0, options));
+    }
+
+}
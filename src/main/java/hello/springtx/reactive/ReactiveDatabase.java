@@ -0,0 +1,56 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * R2DBC 커넥션 풀, DatabaseClient, ReactiveTransactionManager 묶음
+ *
+ * ConnectionFactory, ReactiveTransactionManager 를 빈으로 등록하지 않는다
+ * - ConnectionFactory 빈이 있으면 스프링 부트가 DataSource(JPA)를 만들지 않는다
+ * - TransactionManager 빈이 둘이면 JpaTransactionManager 가 만들어지지 않고, @Transactional 이 어떤 매니저를 쓸지 정할 수 없다
+ * 그래서 리액티브 트랜잭션은 @Transactional 대신 TransactionalOperator 로 시작한다
+ */
+public class ReactiveDatabase {
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient client;
+    private final ReactiveTransactionManager transactionManager;
+
+    public ReactiveDatabase(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.client = DatabaseClient.create(connectionPool);
+        this.transactionManager = new R2dbcTransactionManager(connectionPool);
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    /**
+     * propagation: TransactionDefinition.PROPAGATION_*
+     */
+    public TransactionalOperator operator(int propagation, String name) {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition(propagation);
+        definition.setName(name);
+        return TransactionalOperator.create(transactionManager, definition);
+    }
+
+    public TransactionalOperator operator(String name) {
+        return operator(TransactionDefinition.PROPAGATION_REQUIRED, name);
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void dispose() {
+        connectionPool.dispose();
+    }
+
+}
@@ -0,0 +1,61 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Log;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveLogRepository {
+
+    private final DatabaseClient client;
+    private final TransactionalOperator requiresNew;
+
+    public ReactiveLogRepository(ReactiveDatabase reactiveDatabase) {
+        this.client = reactiveDatabase.client();
+        this.requiresNew = reactiveDatabase.operator(TransactionDefinition.PROPAGATION_REQUIRES_NEW,
+                ReactiveLogRepository.class.getName() + ".save");
+    }
+
+    /**
+     * LogRepository.save()와 같이 REQUIRES_NEW 로 저장한다
+     * 외부 트랜잭션은 잠시 보류되고, 로그는 다른 커넥션에서 커밋/롤백된다
+     */
+    public Mono<Log> save(Log logMessage) {
+        Mono<Log> save = client.sql("select next value for log_seq").map(row -> row.get(0, Long.class)).one()
+                .flatMap(id -> {
+                    log.info("log 저장");
+                    logMessage.setId(id);
+                    return client.sql("insert into log (id, message) values (:id, :message)")
+                            .bind("id", id)
+                            .bind("message", logMessage.getMessage())
+                            .then();
+                })
+                .then(Mono.defer(() -> {
+                    if (logMessage.getMessage().contains("로그예외")) {
+                        log.info("log 저장시 예외 발생");
+                        return Mono.error(new RuntimeException("예외 발생"));
+                    }
+                    return Mono.just(logMessage);
+                }));
+        return requiresNew.transactional(save);
+    }
+
+    public Mono<Log> find(String message) {
+        return client.sql("select id, message from log where message = :message limit 1")
+                .bind("message", message)
+                .map(row -> {
+                    Log logMessage = new Log(row.get("message", String.class));
+                    logMessage.setId(row.get("id", Long.class));
+                    return logMessage;
+                })
+                .one();
+    }
+
+}
@@ -0,0 +1,51 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+@Repository
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveMemberRepository {
+
+    private final DatabaseClient client;
+
+    public ReactiveMemberRepository(ReactiveDatabase reactiveDatabase) {
+        this.client = reactiveDatabase.client();
+    }
+
+    /**
+     * 호출한 쪽의 트랜잭션에 참여한다 (구독 컨텍스트의 트랜잭션 커넥션을 사용한다)
+     */
+    public Mono<Member> save(Member member) {
+        return client.sql("select next value for member_seq").map(row -> row.get(0, Long.class)).one()
+                .flatMap(id -> {
+                    log.info("멤버 저장");
+                    member.setId(id);
+                    member.setVersion(0L);
+                    return client.sql("insert into member (id, username, version) values (:id, :username, :version)")
+                            .bind("id", id)
+                            .bind("username", member.getUsername())
+                            .bind("version", member.getVersion())
+                            .then();
+                })
+                .thenReturn(member);
+    }
+
+    public Mono<Member> find(String username) {
+        return client.sql("select id, username, version from member where username = :username limit 1")
+                .bind("username", username)
+                .map(row -> {
+                    Member member = new Member(row.get("username", String.class));
+                    member.setId(row.get("id", Long.class));
+                    member.setVersion(row.get("version", Long.class));
+                    return member;
+                })
+                .one();
+    }
+
+}
@@ -0,0 +1,48 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * MemberService.joinV2 의 리액티브 버전
+ * 회원 저장은 join 트랜잭션에서, 로그 저장은 REQUIRES_NEW 트랜잭션에서 실행한다
+ * 로그 저장이 실패해도 회원 저장은 커밋된다
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveMemberService {
+
+    private final ReactiveMemberRepository memberRepository;
+    private final ReactiveLogRepository logRepository;
+    private final TransactionalOperator txOperator;
+
+    public ReactiveMemberService(ReactiveDatabase reactiveDatabase,
+                                 ReactiveMemberRepository memberRepository,
+                                 ReactiveLogRepository logRepository) {
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.txOperator = reactiveDatabase.operator(ReactiveMemberService.class.getName() + ".join");
+    }
+
+    public Mono<Member> join(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        Mono<Member> join = memberRepository.save(member)
+                .flatMap(saved -> logRepository.save(logMessage)
+                        .onErrorResume(RuntimeException.class, e -> {
+                            log.info("log 저장에 실패했습니다. logMessage = {}", logMessage.getMessage());
+                            log.info("정상 흐름 반환");
+                            return Mono.empty();
+                        })
+                        .thenReturn(saved));
+        return txOperator.transactional(join);
+    }
+
+}
@@ -0,0 +1,59 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.Order;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * orders, order_outbox 테이블 (OrderRepository, OrderOutboxRepository 와 같은 테이블)
+ * id 는 하이버네이트와 같은 시퀀스에서 받는다
+ * 하이버네이트(pooled-lo)는 받은 값부터 allocationSize 만큼 사용하므로 여기서 받은 값과 겹치지 않는다
+ */
+@Repository
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveOrderRepository {
+
+    private final DatabaseClient client;
+
+    public ReactiveOrderRepository(ReactiveDatabase reactiveDatabase) {
+        this.client = reactiveDatabase.client();
+    }
+
+    public Mono<Order> save(Order order) {
+        return nextValue("orders_seq")
+                .flatMap(id -> {
+                    order.setId(id);
+                    order.setVersion(0L);
+                    DatabaseClient.GenericExecuteSpec insert = client
+                            .sql("insert into orders (id, username, pay_status, version) values (:id, :username, :payStatus, :version)")
+                            .bind("id", id)
+                            .bind("username", order.getUsername())
+                            .bind("version", order.getVersion());
+                    return (order.getPayStatus() != null
+                            ? insert.bind("payStatus", order.getPayStatus())
+                            : insert.bindNull("payStatus", String.class)).then();
+                })
+                .thenReturn(order);
+    }
+
+    public Mono<Void> saveOutbox(Order order) {
+        return nextValue("order_outbox_seq")
+                .flatMap(id -> client.sql("insert into order_outbox (id, order_id, username, pay_status, created_at) "
+                                + "values (:id, :orderId, :username, :payStatus, :createdAt)")
+                        .bind("id", id)
+                        .bind("orderId", order.getId())
+                        .bind("username", order.getUsername())
+                        .bind("payStatus", order.getPayStatus())
+                        .bind("createdAt", LocalDateTime.now())
+                        .then());
+    }
+
+    private Mono<Long> nextValue(String sequence) {
+        return client.sql("select next value for " + sequence).map(row -> row.get(0, Long.class)).one();
+    }
+
+}
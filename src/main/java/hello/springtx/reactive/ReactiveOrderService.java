@@ -0,0 +1,66 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderOutcome;
+import hello.springtx.order.OrderResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * OrderService.order 의 리액티브 버전, 커밋/롤백 규칙은 같다
+ * - 시스템 예외(RuntimeException): 롤백
+ * - 잔고 부족(NotEnoughMoneyException): 대기 상태로 커밋한 다음 예외를 전달한다
+ *
+ * TransactionalOperator 는 예외 종류와 관계없이 롤백하므로
+ * 잔고 부족은 트랜잭션 안에서 결과(OrderResult)로 반환하고, 커밋된 다음에 예외로 바꾼다
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "springtx.reactive.enabled", havingValue = "true")
+public class ReactiveOrderService {
+
+    private final ReactiveOrderRepository orderRepository;
+    private final TransactionalOperator txOperator;
+
+    public ReactiveOrderService(ReactiveDatabase reactiveDatabase, ReactiveOrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+        this.txOperator = reactiveDatabase.operator(ReactiveOrderService.class.getName() + ".order");
+    }
+
+    public Mono<Order> order(Order order) {
+        return txOperator.transactional(Mono.defer(() -> pay(order)))
+                .flatMap(result -> result.getOutcome() == OrderOutcome.PENDING
+                        ? Mono.error(new NotEnoughMoneyException(result.getMessage()))
+                        : Mono.just(result.getOrder()));
+    }
+
+    private Mono<OrderResult> pay(Order order) {
+        log.info("order 호출");
+        log.info("결제 프로세스 진입");
+        if (order.getUsername().equals("예외")) {
+            return orderRepository.save(order)
+                    .then(Mono.error(() -> {
+                        log.info("시스템 예외 발생");
+                        return new RuntimeException("시스템 예외");
+                    }));
+        } else if (order.getUsername().equals("잔고부족")) {
+            log.info("잔고 부족 비즈니스 예외");
+            order.setPayStatus("대기");
+            return orderRepository.save(order)
+                    .then(orderRepository.saveOutbox(order))
+                    .thenReturn(OrderResult.pending(order, "잔고가 부족합니다."));
+        } else {
+            // 정상 승인
+            log.info("정상 승인");
+            order.setPayStatus("완료");
+            return orderRepository.save(order)
+                    .then(orderRepository.saveOutbox(order))
+                    .thenReturn(OrderResult.completed(order));
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+package hello.springtx.thread;
+
+public enum ThreadMode {
+    PLATFORM, VIRTUAL
+}
@@ -0,0 +1,175 @@
+package hello.springtx.thread;
+
+import hello.springtx.tx.ConnectionBudgetManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OrderService, MemberService 같은 트랜잭션 작업을 요청마다 별도 스레드에서 실행한다
+ * - PLATFORM: 고정 크기 플랫폼 스레드 풀
+ * - VIRTUAL: 작업마다 가상 스레드 (Java 21 이상)
+ *
+ * 트랜잭션 상태는 TransactionSynchronizationManager 의 ThreadLocal 에 있으므로 작업 하나의 트랜잭션은 끝날 때까지 한 스레드에서 실행된다
+ * 가상 스레드가 커넥션 풀(Hikari)이나 JDBC 드라이버의 synchronized 구간에서 기다리면 캐리어 스레드가 같이 묶인다(pinning)
+ * 그래서 작업은 커넥션을 얻기 전에 커넥션 수만큼 허가(Semaphore)를 먼저 받는다
+ * 허가를 기다리는 가상 스레드는 캐리어 스레드를 놓아주고, 허가를 받은 작업은 커넥션 풀에서 기다리지 않는다
+ *
+ * springtx.tx.connection-budget 이 켜져 있으면(enforce=true) 별도의 Semaphore 대신 ConnectionBudgetManager 의 허가를 사용한다
+ * 작업을 시작할 때 ConnectionBudgetManager.reserveThread 로 커넥션을 미리 예약하고, 작업 안의 트랜잭션은 그 예약을 사용한다
+ * 두 곳에서 따로 허가를 받으면 트랜잭션 하나가 허가를 두 번 받는다
+ *
+ * springtx.thread.enabled=true 일 때만 등록한다 (스레드 풀을 만들기 때문에 기본은 꺼져 있다)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "springtx.thread.enabled", havingValue = "true")
+public class TransactionExecutor {
+
+    private final ThreadMode mode;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final ConnectionBudgetManager budgetManager;
+    private final int maxConcurrentConnections;
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong leakedCount = new AtomicLong();
+
+    public TransactionExecutor(String mode, int platformPoolSize, int maxConcurrentConnections) {
+        this(mode, platformPoolSize, maxConcurrentConnections, null);
+    }
+
+    /**
+     * @param budgetManager enforce=true 이면 maxConcurrentConnections 대신 budgetManager 의 커넥션 수와 허가를 사용한다
+     */
+    @Autowired
+    public TransactionExecutor(@Value("${springtx.thread.mode:platform}") String mode,
+                               @Value("${springtx.thread.platform-pool-size:200}") int platformPoolSize,
+                               @Value("${springtx.thread.max-concurrent-connections:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrentConnections,
+                               @Nullable ConnectionBudgetManager budgetManager) {
+        this.mode = ThreadMode.valueOf(mode.toUpperCase());
+        this.executor = this.mode == ThreadMode.VIRTUAL
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(platformPoolSize, platformThreadFactory());
+        if (budgetManager != null && budgetManager.isEnforce()) {
+            this.budgetManager = budgetManager;
+            this.permits = null;
+            this.maxConcurrentConnections = budgetManager.getMaxConnections();
+        } else {
+            this.budgetManager = null;
+            this.permits = new Semaphore(maxConcurrentConnections, true);
+            this.maxConcurrentConnections = maxConcurrentConnections;
+        }
+        log.info("TransactionExecutor mode={}, maxConcurrentConnections={}, connectionBudget={}",
+                this.mode, this.maxConcurrentConnections, this.budgetManager != null);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 커넥션 1개를 사용하는 작업
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(1, task);
+    }
+
+    /**
+     * @param connections 작업 하나가 동시에 사용하는 커넥션 수 (REQUIRES_NEW 로 로그를 저장하는 MemberService.joinV1 은 2)
+     *                    작업마다 필요한 커넥션을 한 번에 받으므로 커넥션을 하나씩 나눠 가진 채로 서로 기다리지 않는다
+     */
+    public <T> CompletableFuture<T> submit(int connections, Callable<T> task) {
+        if (connections > maxConcurrentConnections) {
+            throw new IllegalArgumentException("connections(" + connections + ")는 maxConcurrentConnections(" + maxConcurrentConnections + ")보다 클 수 없습니다.");
+        }
+        return CompletableFuture.supplyAsync(() -> call(connections, task), executor);
+    }
+
+    private <T> T call(int connections, Callable<T> task) {
+        acquire(connections);
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            release(connections);
+            completedCount.incrementAndGet();
+            checkThreadState();
+        }
+    }
+
+    private void acquire(int connections) {
+        if (budgetManager != null) {
+            budgetManager.reserveThread(connections);
+        } else {
+            permits.acquireUninterruptibly(connections);
+        }
+    }
+
+    private void release(int connections) {
+        if (budgetManager != null) {
+            budgetManager.releaseThread();
+        } else {
+            permits.release(connections);
+        }
+    }
+
+    /**
+     * 플랫폼 스레드는 재사용되므로 트랜잭션이 끝났는데 ThreadLocal 에 리소스가 남아 있으면 다음 작업에 섞인다
+     */
+    private void checkThreadState() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.getResourceMap().isEmpty()) {
+            leakedCount.incrementAndGet();
+            log.warn("작업이 끝난 스레드에 트랜잭션 리소스가 남아 있습니다. thread={}, resources={}",
+                    Thread.currentThread(), TransactionSynchronizationManager.getResourceMap().keySet());
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> new Thread(runnable, "tx-executor-" + sequence.incrementAndGet());
+    }
+
+    public ThreadMode getMode() {
+        return mode;
+    }
+
+    public int getMaxConcurrentConnections() {
+        return maxConcurrentConnections;
+    }
+
+    public int getAvailablePermits() {
+        return budgetManager != null ? budgetManager.getAvailablePermits() : permits.availablePermits();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    public long getLeakedCount() {
+        return leakedCount.get();
+    }
+
+}
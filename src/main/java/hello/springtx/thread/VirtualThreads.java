@@ -0,0 +1,44 @@
+package hello.springtx.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 소스 레벨은 Java 11 이므로 가상 스레드 API(Java 21)는 리플렉션으로 호출한다
+ * Java 21 이상에서 실행할 때만 사용할 수 있다 (./gradlew test -PjavaToolchain=21)
+ */
+public abstract class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findMethod();
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 작업마다 새 가상 스레드를 만드는 ExecutorService
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new IllegalStateException("가상 스레드는 Java 21 이상에서 사용할 수 있습니다. java.version=" + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 ExecutorService 생성 실패", e);
+        }
+    }
+
+    private static Method findMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+}
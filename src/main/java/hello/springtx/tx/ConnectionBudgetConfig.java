@@ -0,0 +1,48 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * springtx.tx.connection-budget.enabled=true
+ * 트랜잭션 매니저를 ConnectionBudgetTransactionManager 로 감싸고 커넥션 풀 데드락 탐지기를 등록한다
+ * enforce=false 이면 예약 없이 사용량만 기록한다 (데드락 탐지만 사용)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.connection-budget.enabled", havingValue = "true")
+public class ConnectionBudgetConfig {
+
+    @Bean
+    public ConnectionBudgetManager connectionBudgetManager(
+            @Value("${springtx.tx.connection-budget.max-connections:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConnections,
+            @Value("${springtx.tx.connection-budget.enforce:true}") boolean enforce,
+            @Value("${springtx.tx.connection-budget.acquire-timeout-ms:5000}") long acquireTimeoutMillis) {
+        return new ConnectionBudgetManager(maxConnections, enforce, acquireTimeoutMillis);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PoolDeadlockDetector poolDeadlockDetector(
+            ConnectionBudgetManager connectionBudgetManager,
+            @Value("${springtx.tx.connection-budget.deadlock-check-interval-ms:1000}") long checkIntervalMillis) {
+        return new PoolDeadlockDetector(connectionBudgetManager, checkIntervalMillis);
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionBudgetPostProcessor(ObjectProvider<ConnectionBudgetManager> budgetManager) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PlatformTransactionManager && !(bean instanceof ConnectionBudgetTransactionManager)) {
+                    return new ConnectionBudgetTransactionManager((PlatformTransactionManager) bean, budgetManager.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,15 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * 트랜잭션에 필요한 커넥션을 예약하지 못했다
+ * 커넥션 풀에서 기다리지 않고 바로 실패한다 (커넥션을 가진 채로 다른 커넥션을 기다리지 않는다)
+ */
+public class ConnectionBudgetException extends CannotCreateTransactionException {
+
+    public ConnectionBudgetException(String msg) {
+        super(msg);
+    }
+
+}
@@ -0,0 +1,267 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 커넥션 풀 크기만큼의 허가(permit)로 스레드별 커넥션 사용량을 관리한다
+ *
+ * REQUIRES_NEW 는 외부 트랜잭션의 커넥션을 가진 채로 커넥션을 하나 더 얻는다
+ * 풀 크기만큼의 스레드가 모두 이렇게 기다리면 아무도 커넥션을 반납하지 못한다 (pool deadlock)
+ * - 가장 바깥 트랜잭션을 시작할 때, 그 트랜잭션(이름 기준)이 동시에 사용했던 최대 커넥션 수를 한 번에 예약한다
+ *   아무것도 가지지 않은 상태에서만 기다리므로 커넥션을 가진 채로 기다리는 일이 없다
+ * - 예약한 수보다 많은 커넥션이 필요하면 기다리지 않고 바로 얻거나, 얻을 수 없으면 ConnectionBudgetException 으로 실패한다
+ *   이때 필요한 커넥션 수를 기록해두고 다음 호출부터는 처음에 그만큼 예약한다
+ * - 이름이 없는 트랜잭션(이름을 지정하지 않은 TransactionTemplate 등)은 서로 다른 작업이 섞이므로 기록하지 않는다
+ *   항상 1개를 예약하고, 더 필요하면 기다리지 않고 바로 얻거나 실패한다
+ *
+ * TransactionExecutor 처럼 트랜잭션을 시작하기 전에 필요한 커넥션 수를 아는 경우 reserveThread 로 미리 예약한다
+ * 그 스레드의 트랜잭션은 미리 예약한 허가를 사용하고 다시 예약하지 않는다 (releaseThread 까지 유지)
+ *
+ * enforce=false 이면 허가는 사용하지 않고 스레드별 사용량만 기록한다 (PoolDeadlockDetector 에서 사용)
+ * 트랜잭션 밖에서 커넥션을 사용하는 경우(JdbcTemplate 등)는 관리하지 않는다
+ */
+@Slf4j
+public class ConnectionBudgetManager {
+
+    private static final String RESERVED = "(reserved)";
+    private static final String UNNAMED = "(unnamed)";
+
+    private final int maxConnections;
+    private final boolean enforce;
+    private final long acquireTimeoutMillis;
+    private final Semaphore permits;
+
+    private final Map<String, Integer> budgets = new ConcurrentHashMap<>();
+    private final Map<Thread, ThreadBudget> threads = new ConcurrentHashMap<>();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public ConnectionBudgetManager(int maxConnections, boolean enforce, long acquireTimeoutMillis) {
+        this.maxConnections = maxConnections;
+        this.enforce = enforce;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * 새 물리 트랜잭션이 커넥션을 얻기 직전에 호출한다
+     * @param name 트랜잭션 이름, 없으면 null
+     */
+    void beforeAcquire(String name) {
+        name = name != null ? name : UNNAMED;
+        Thread thread = Thread.currentThread();
+        ThreadBudget budget = threads.get(thread);
+        if (budget == null) {
+            budget = new ThreadBudget(name, thread);
+            reserve(budget, budgetOf(name));
+            threads.put(thread, budget);
+        } else {
+            if (budget.held == 0) {
+                // 미리 예약한 스레드의 가장 바깥 트랜잭션
+                budget.name = name;
+            }
+            if (budget.held >= budget.reserved) {
+                extend(budget);
+            }
+        }
+        budget.waiting = budget.held > 0;
+    }
+
+    /**
+     * beforeAcquire 이후 트랜잭션 시작에 성공하면 afterAcquire, 실패하면 acquireFailed
+     */
+    void afterAcquire() {
+        ThreadBudget budget = threads.get(Thread.currentThread());
+        budget.waiting = false;
+        budget.held++;
+        budget.peak = Math.max(budget.peak, budget.held);
+    }
+
+    void acquireFailed() {
+        ThreadBudget budget = threads.get(Thread.currentThread());
+        budget.waiting = false;
+        if (budget.held == 0) {
+            finish(budget);
+        }
+    }
+
+    /**
+     * 새 물리 트랜잭션이 커밋/롤백되어 커넥션을 반납한 뒤에 호출한다
+     */
+    void release() {
+        ThreadBudget budget = threads.get(Thread.currentThread());
+        budget.held--;
+        if (budget.held == 0) {
+            finish(budget);
+        }
+    }
+
+    private void reserve(ThreadBudget budget, int connections) {
+        if (!enforce) {
+            return;
+        }
+        try {
+            if (!permits.tryAcquire(connections, acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejectedCount.increment();
+                throw new ConnectionBudgetException("커넥션 " + connections + "개를 " + acquireTimeoutMillis
+                        + "ms 안에 예약하지 못했습니다. name=" + budget.name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectionBudgetException("커넥션 예약 중 인터럽트. name=" + budget.name);
+        }
+        budget.reserved = connections;
+    }
+
+    private void extend(ThreadBudget budget) {
+        // 다음 호출부터는 처음에 필요한 만큼 예약한다
+        learn(budget.name, budget.held + 1);
+        if (!enforce) {
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            rejectedCount.increment();
+            throw new ConnectionBudgetException("커넥션을 " + budget.held + "개 가진 채로 커넥션을 더 기다릴 수 없습니다. name="
+                    + budget.name + ", reserved=" + budget.reserved);
+        }
+        budget.reserved++;
+        log.info("커넥션 예약 추가. name={}, reserved={}", budget.name, budget.reserved);
+    }
+
+    private void finish(ThreadBudget budget) {
+        learn(budget.name, Math.max(budget.peak, 1));
+        if (budget.preReserved > 0) {
+            // 미리 예약한 만큼은 releaseThread 까지 유지하고 트랜잭션 중에 추가로 예약한 것만 반납한다
+            if (enforce && budget.reserved > budget.preReserved) {
+                permits.release(budget.reserved - budget.preReserved);
+            }
+            budget.reserved = budget.preReserved;
+            budget.name = RESERVED;
+            budget.peak = 0;
+            return;
+        }
+        threads.remove(budget.thread);
+        if (enforce && budget.reserved > 0) {
+            permits.release(budget.reserved);
+        }
+    }
+
+    /**
+     * 트랜잭션을 시작하기 전에 이 스레드가 동시에 사용할 커넥션을 미리 예약한다 (커넥션을 가지지 않은 상태에서만 기다린다)
+     * 예약하지 못하면 ConnectionBudgetException
+     */
+    public void reserveThread(int connections) {
+        Thread thread = Thread.currentThread();
+        if (threads.containsKey(thread)) {
+            throw new IllegalStateException("이미 커넥션을 예약했거나 트랜잭션이 진행 중인 스레드입니다. thread=" + thread);
+        }
+        int reserved = Math.min(connections, maxConnections);
+        ThreadBudget budget = new ThreadBudget(RESERVED, thread, reserved);
+        reserve(budget, reserved);
+        threads.put(thread, budget);
+    }
+
+    /**
+     * reserveThread 로 예약한 커넥션을 반납한다
+     */
+    public void releaseThread() {
+        ThreadBudget budget = threads.remove(Thread.currentThread());
+        if (budget != null && enforce && budget.reserved > 0) {
+            permits.release(budget.reserved);
+        }
+    }
+
+    private int budgetOf(String name) {
+        return Math.min(budgets.getOrDefault(name, 1), maxConnections);
+    }
+
+    private void learn(String name, int connections) {
+        if (!UNNAMED.equals(name)) {
+            budgets.merge(name, connections, Math::max);
+        }
+    }
+
+    /**
+     * 트랜잭션 이름별로 동시에 필요한 커넥션 수를 미리 알려준다
+     */
+    public void declare(String name, int connections) {
+        budgets.merge(name, connections, Math::max);
+    }
+
+    public Map<String, Integer> getBudgets() {
+        return Map.copyOf(budgets);
+    }
+
+    /**
+     * 지금 커넥션을 가지고 있거나 예약한 스레드
+     */
+    public List<ThreadBudget> getThreadBudgets() {
+        return new ArrayList<>(threads.values());
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public boolean isEnforce() {
+        return enforce;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public static class ThreadBudget {
+
+        private volatile String name;
+        private final Thread thread;
+        private final int preReserved;
+        private volatile int reserved;
+        private volatile int held;
+        private volatile int peak;
+        private volatile boolean waiting;
+
+        ThreadBudget(String name, Thread thread) {
+            this(name, thread, 0);
+        }
+
+        ThreadBudget(String name, Thread thread, int preReserved) {
+            this.name = name;
+            this.thread = thread;
+            this.preReserved = preReserved;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Thread getThread() {
+            return thread;
+        }
+
+        public int getHeld() {
+            return held;
+        }
+
+        /**
+         * 커넥션을 가진 채로 커넥션을 더 기다리는 중
+         */
+        public boolean isWaiting() {
+            return waiting;
+        }
+
+    }
+
+}
@@ -0,0 +1,110 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 새 물리 트랜잭션(커넥션)을 시작하기 전에 ConnectionBudgetManager 에서 커넥션을 예약한다
+ * TransactionStatus 는 감싸지 않고 그대로 반환한다. 트랜잭션은 스레드에 묶여서 시작의 역순으로 끝나므로 스레드별 스택으로 짝을 맞춘다
+ * getResourceFactory() 는 감싼 매니저의 것을 돌려준다
+ */
+public class ConnectionBudgetTransactionManager implements ResourceTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+    private final ConnectionBudgetManager budgetManager;
+    private final ThreadLocal<Deque<Boolean>> acquired = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public ConnectionBudgetTransactionManager(PlatformTransactionManager delegate, ConnectionBudgetManager budgetManager) {
+        this.delegate = delegate;
+        this.budgetManager = budgetManager;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 리소스 트랜잭션 매니저가 아니면 null
+     */
+    @Override
+    public Object getResourceFactory() {
+        return delegate instanceof ResourceTransactionManager
+                ? ((ResourceTransactionManager) delegate).getResourceFactory()
+                : null;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        if (!acquiresConnection(def)) {
+            TransactionStatus status = delegate.getTransaction(def);
+            acquired.get().push(false);
+            return status;
+        }
+
+        budgetManager.beforeAcquire(def.getName());
+        TransactionStatus status;
+        try {
+            status = delegate.getTransaction(def);
+        } catch (RuntimeException | Error e) {
+            budgetManager.acquireFailed();
+            throw e;
+        }
+        budgetManager.afterAcquire();
+        acquired.get().push(true);
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        try {
+            delegate.commit(status);
+        } finally {
+            complete();
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        try {
+            delegate.rollback(status);
+        } finally {
+            complete();
+        }
+    }
+
+    private void complete() {
+        Deque<Boolean> stack = acquired.get();
+        if (stack.pop()) {
+            budgetManager.release();
+        }
+        if (stack.isEmpty()) {
+            acquired.remove();
+        }
+    }
+
+    /**
+     * 새 커넥션을 얻는 경우
+     * - REQUIRES_NEW: 항상 (진행 중인 트랜잭션이 있으면 그 커넥션을 가진 채로)
+     * - REQUIRED, NESTED: 진행 중인 트랜잭션이 없을 때
+     */
+    private boolean acquiresConnection(TransactionDefinition definition) {
+        switch (definition.getPropagationBehavior()) {
+            case TransactionDefinition.PROPAGATION_REQUIRES_NEW:
+                return true;
+            case TransactionDefinition.PROPAGATION_REQUIRED:
+            case TransactionDefinition.PROPAGATION_NESTED:
+                return !TransactionSynchronizationManager.isActualTransactionActive();
+            default:
+                return false;
+        }
+    }
+
+}
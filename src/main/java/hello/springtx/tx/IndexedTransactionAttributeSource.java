@@ -0,0 +1,53 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * 빌드 시점에 만든 TransactionAttributeIndex 에서 트랜잭션 속성을 꺼낸다
+ * 인덱스에 있는 클래스는 어노테이션을 찾지 않는다 (프록시 생성 시점의 isCandidateClass, 첫 호출 시점의 getTransactionAttribute)
+ * 인덱스에 없는 클래스(스프링 데이터 리포지토리, 테스트 클래스, 빌드 후에 추가된 클래스)는 원래 속성 소스에 맡긴다
+ */
+public class IndexedTransactionAttributeSource implements TransactionAttributeSource {
+
+    private final TransactionAttributeSource delegate;
+    private final TransactionAttributeIndex index;
+    private final TransactionAttributeCache cache = new TransactionAttributeCache(this::load);
+
+    public IndexedTransactionAttributeSource(TransactionAttributeSource delegate, TransactionAttributeIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        Map<String, TransactionAttribute> attributes = index.getAttributes(targetClass.getName());
+        if (attributes == null) {
+            return delegate.isCandidateClass(targetClass);
+        }
+        return !attributes.isEmpty();
+    }
+
+    @Override
+    public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+        if (targetClass == null) {
+            return delegate.getTransactionAttribute(method, null);
+        }
+        return cache.get(method, targetClass);
+    }
+
+    private TransactionAttribute load(Method method, Class<?> targetClass) {
+        Map<String, TransactionAttribute> attributes = index.getAttributes(targetClass.getName());
+        return attributes != null
+                ? attributes.get(TransactionAttributeIndex.signature(method))
+                : delegate.getTransactionAttribute(method, targetClass);
+    }
+
+    public TransactionAttributeIndex getIndex() {
+        return index;
+    }
+
+}
@@ -0,0 +1,89 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * 트랜잭션 AOP는 예외가 발생하면 TransactionAttribute.rollbackOn(ex)로 롤백 여부를 확인한 뒤 트랜잭션 매니저를 호출한다
+ * 이 시점에 예외를 현재 트랜잭션 상태에 기록해두면 트랜잭션 매니저가 롤백 원인을 알 수 있다
+ */
+public class InstrumentedTransactionAttributeSource implements TransactionAttributeSource {
+
+    private final TransactionAttributeSource delegate;
+    private final TransactionAttributeCache cache = new TransactionAttributeCache(this::load);
+
+    public InstrumentedTransactionAttributeSource(TransactionAttributeSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+        return cache.get(method, targetClass);
+    }
+
+    private TransactionAttribute load(Method method, Class<?> targetClass) {
+        TransactionAttribute attribute = delegate.getTransactionAttribute(method, targetClass);
+        return attribute != null ? new FailureRecordingAttribute(attribute, method, targetClass) : null;
+    }
+
+    /**
+     * 트랜잭션 AOP 는 속성에 이름이 없으면 호출마다 "클래스.메서드" 이름을 만들고 속성을 한 번 더 감싼다
+     * 이름과 descriptor 를 미리 정해두면 호출마다 할당하지 않는다 (이름은 AOP 가 만드는 것과 같다)
+     */
+    private static class FailureRecordingAttribute extends DefaultTransactionAttribute {
+
+        private final TransactionAttribute targetAttribute;
+
+        FailureRecordingAttribute(TransactionAttribute targetAttribute, Method method, Class<?> targetClass) {
+            super(targetAttribute);
+            this.targetAttribute = targetAttribute;
+            setQualifier(targetAttribute.getQualifier());
+            setLabels(targetAttribute.getLabels());
+            String name = targetAttribute.getName() != null
+                    ? targetAttribute.getName()
+                    : identification(targetAttribute, method, targetClass);
+            setName(name);
+            setDescriptor(name);
+        }
+
+        private static String identification(TransactionAttribute attribute, Method method, Class<?> targetClass) {
+            if (attribute instanceof DefaultTransactionAttribute
+                    && ((DefaultTransactionAttribute) attribute).getDescriptor() != null) {
+                return ((DefaultTransactionAttribute) attribute).getDescriptor();
+            }
+            return ClassUtils.getQualifiedMethodName(method, targetClass);
+        }
+
+        @Override
+        public boolean rollbackOn(Throwable ex) {
+            TransactionStatus status = currentStatus();
+            boolean rollback = targetAttribute.rollbackOn(ex);
+            if (rollback && status instanceof InstrumentedTransactionStatus) {
+                ((InstrumentedTransactionStatus) status).failure = ex;
+            }
+            return rollback;
+        }
+
+        private static TransactionStatus currentStatus() {
+            try {
+                return TransactionAspectSupport.currentTransactionStatus();
+            } catch (NoTransactionException e) {
+                return null;
+            }
+        }
+
+    }
+
+}
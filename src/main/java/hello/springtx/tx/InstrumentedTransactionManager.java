@@ -0,0 +1,166 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 트랜잭션 매니저를 감싸서 시작/커밋/롤백 시간, 커넥션 점유 시간, 보류(suspend) 횟수를 TxMetrics에 기록한다
+ * 로그(TRACE, DEBUG)를 켜지 않고도 운영 환경에서 트랜잭션 비용을 볼 수 있다
+ *
+ * recycleStatus=true 이면 끝난 InstrumentedTransactionStatus 를 스레드별로 모아두고 다음 트랜잭션에서 다시 쓴다
+ * 트랜잭션 AOP, TransactionTemplate 은 커밋/롤백 이후 상태를 참조하지 않는다, 커밋 이후에도 상태를 들고 있는 코드가 있으면 켜지 않는다
+ * 스레드를 재사용하지 않는 가상 스레드 모드에서는 효과가 없다
+ *
+ * JpaTransactionManager 같은 ResourceTransactionManager 를 감싸도 getResourceFactory() 는 원래 매니저의 것을 돌려준다
+ */
+public class InstrumentedTransactionManager implements ResourceTransactionManager {
+
+    private static final int STATUS_POOL_SIZE = 4;
+
+    private final PlatformTransactionManager delegate;
+    private final TxMetrics metrics;
+    private final List<TransactionObserver> observers;
+    private final ThreadLocal<StatusPool> statusPool;
+
+    public InstrumentedTransactionManager(PlatformTransactionManager delegate, TxMetrics metrics,
+                                          List<TransactionObserver> observers) {
+        this(delegate, metrics, observers, false);
+    }
+
+    public InstrumentedTransactionManager(PlatformTransactionManager delegate, TxMetrics metrics,
+                                          List<TransactionObserver> observers, boolean recycleStatus) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.observers = observers;
+        this.statusPool = recycleStatus ? ThreadLocal.withInitial(StatusPool::new) : null;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 리소스 트랜잭션 매니저가 아니면 null
+     */
+    @Override
+    public Object getResourceFactory() {
+        return delegate instanceof ResourceTransactionManager
+                ? ((ResourceTransactionManager) delegate).getResourceFactory()
+                : null;
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition def = definition != null ? definition : TransactionDefinition.withDefaults();
+        boolean suspending = isSuspending(def);
+        long start = System.nanoTime();
+        TransactionStatus status = delegate.getTransaction(def);
+        long begun = System.nanoTime();
+
+        TxStats stats = metrics.stats(def);
+        stats.begin.record(begun - start);
+        if (suspending) {
+            stats.suspendCount.increment();
+        }
+        for (TransactionObserver observer : observers) {
+            observer.afterBegin(def, status);
+        }
+        InstrumentedTransactionStatus txStatus = statusPool != null
+                ? statusPool.get().acquire()
+                : new InstrumentedTransactionStatus();
+        return txStatus.init(status, stats, begun, suspending);
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        InstrumentedTransactionStatus txStatus = (InstrumentedTransactionStatus) status;
+        // rollbackOnly 이면 커밋을 호출해도 실제로는 롤백된다
+        boolean rollbackOnly = txStatus.delegate.isRollbackOnly();
+        long start = System.nanoTime();
+        try {
+            delegate.commit(txStatus.delegate);
+        } catch (RuntimeException | Error e) {
+            // UnexpectedRollbackException, flush/커밋 실패(DataIntegrityViolationException, 낙관적 락 충돌 등)
+            // 트랜잭션 매니저가 롤백한 뒤 예외를 다시 던진다
+            txStatus.failure = e;
+            rollbackOnly = true;
+            throw e;
+        } finally {
+            complete(txStatus, start, rollbackOnly);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        InstrumentedTransactionStatus txStatus = (InstrumentedTransactionStatus) status;
+        long start = System.nanoTime();
+        try {
+            delegate.rollback(txStatus.delegate);
+        } finally {
+            complete(txStatus, start, true);
+        }
+    }
+
+    private void complete(InstrumentedTransactionStatus txStatus, long start, boolean rolledBack) {
+        long end = System.nanoTime();
+        TxStats stats = txStatus.stats;
+        if (rolledBack) {
+            stats.rollback.record(end - start);
+            if (txStatus.failure != null) {
+                stats.recordRollbackCause(txStatus.failure.getClass());
+            }
+        } else {
+            stats.commit.record(end - start);
+        }
+        if (txStatus.isNewTransaction()) {
+            stats.hold.record(end - txStatus.begunNanos);
+        }
+        if (txStatus.suspended) {
+            stats.resumeCount.increment();
+        }
+        if (statusPool != null) {
+            txStatus.clear();
+            statusPool.get().release(txStatus);
+        }
+    }
+
+    private boolean isSuspending(TransactionDefinition definition) {
+        int propagation = definition.getPropagationBehavior();
+        return (propagation == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                || propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED)
+                && TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 스레드별 InstrumentedTransactionStatus 재사용 스택
+     * REQUIRES_NEW 로 중첩된 트랜잭션도 시작의 역순으로 끝나므로 중첩 깊이만큼만 쌓인다
+     */
+    private static final class StatusPool {
+
+        private final InstrumentedTransactionStatus[] free = new InstrumentedTransactionStatus[STATUS_POOL_SIZE];
+        private int size;
+
+        InstrumentedTransactionStatus acquire() {
+            if (size == 0) {
+                return new InstrumentedTransactionStatus();
+            }
+            InstrumentedTransactionStatus status = free[--size];
+            free[size] = null;
+            return status;
+        }
+
+        void release(InstrumentedTransactionStatus status) {
+            if (size < free.length) {
+                free[size++] = status;
+            }
+        }
+
+    }
+
+}
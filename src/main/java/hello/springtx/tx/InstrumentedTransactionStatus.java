@@ -0,0 +1,83 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * InstrumentedTransactionManager가 반환하는 트랜잭션 상태
+ * 실제 상태는 delegate가 가지고 있고, 통계 기록에 필요한 정보만 추가로 가지고 있다
+ * springtx.tx.metrics.recycle-status=true 이면 트랜잭션이 끝난 뒤 같은 스레드의 다음 트랜잭션에서 다시 쓴다 (init, clear)
+ */
+class InstrumentedTransactionStatus implements TransactionStatus {
+
+    TransactionStatus delegate;
+    TxStats stats;
+    long begunNanos;
+    boolean suspended;
+
+    // 트랜잭션 AOP가 rollbackOn()을 확인할 때 기록한 예외
+    Throwable failure;
+
+    InstrumentedTransactionStatus init(TransactionStatus delegate, TxStats stats, long begunNanos, boolean suspended) {
+        this.delegate = delegate;
+        this.stats = stats;
+        this.begunNanos = begunNanos;
+        this.suspended = suspended;
+        this.failure = null;
+        return this;
+    }
+
+    /**
+     * 재사용하기 전에 끝난 트랜잭션(엔티티 매니저, 커넥션 등)을 참조하지 않도록 비운다
+     */
+    void clear() {
+        this.delegate = null;
+        this.stats = null;
+        this.failure = null;
+    }
+
+    @Override
+    public boolean isNewTransaction() {
+        return delegate.isNewTransaction();
+    }
+
+    @Override
+    public boolean hasSavepoint() {
+        return delegate.hasSavepoint();
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        delegate.setRollbackOnly();
+    }
+
+    @Override
+    public boolean isRollbackOnly() {
+        return delegate.isRollbackOnly();
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public boolean isCompleted() {
+        return delegate.isCompleted();
+    }
+
+    @Override
+    public Object createSavepoint() {
+        return delegate.createSavepoint();
+    }
+
+    @Override
+    public void rollbackToSavepoint(Object savepoint) {
+        delegate.rollbackToSavepoint(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Object savepoint) {
+        delegate.releaseSavepoint(savepoint);
+    }
+
+}
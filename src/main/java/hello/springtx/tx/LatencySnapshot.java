@@ -0,0 +1,22 @@
+package hello.springtx.tx;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * LatencyHistogram 조회 결과 (단위: 나노초)
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class LatencySnapshot {
+
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+}
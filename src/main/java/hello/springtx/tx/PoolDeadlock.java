@@ -0,0 +1,20 @@
+package hello.springtx.tx;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * PoolDeadlockDetector가 발견한 커넥션 풀 데드락
+ */
+@Getter
+@RequiredArgsConstructor
+public class PoolDeadlock {
+
+    private final long detectedAtMillis;
+    private final int heldConnections;     // 기다리는 스레드들이 가지고 있는 커넥션 수
+    private final List<String> threadNames;
+    private final List<String> transactionNames;
+
+}
@@ -0,0 +1,83 @@
+package hello.springtx.tx;
+
+import hello.springtx.tx.ConnectionBudgetManager.ThreadBudget;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 커넥션 풀의 모든 커넥션을, 커넥션을 더 기다리는 스레드들이 가지고 있으면 데드락이다
+ * (아무도 커넥션을 반납할 수 없으므로 커넥션 풀의 connectionTimeout 까지 모두 기다린 뒤 실패한다)
+ * ConnectionBudgetManager 의 스레드별 사용량으로 주기적으로 확인하고, 발견하면 스레드와 트랜잭션 이름을 남긴다
+ * 같은 데드락은 한 번만 보고한다
+ */
+@Slf4j
+public class PoolDeadlockDetector {
+
+    private static final int MAX_REPORTS = 100;
+
+    private final ConnectionBudgetManager budgetManager;
+    private final ConcurrentLinkedDeque<PoolDeadlock> deadlocks = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pool-deadlock-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<Thread> lastDeadlock = List.of();
+
+    public PoolDeadlockDetector(ConnectionBudgetManager budgetManager, long checkIntervalMillis) {
+        this.budgetManager = budgetManager;
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void check() {
+        List<ThreadBudget> holders = budgetManager.getThreadBudgets().stream()
+                .filter(budget -> budget.getHeld() > 0)
+                .collect(Collectors.toList());
+        int held = holders.stream().mapToInt(ThreadBudget::getHeld).sum();
+        boolean deadlocked = !holders.isEmpty()
+                && held >= budgetManager.getMaxConnections()
+                && holders.stream().allMatch(ThreadBudget::isWaiting);
+        if (!deadlocked) {
+            lastDeadlock = List.of();
+            return;
+        }
+
+        List<Thread> threads = holders.stream().map(ThreadBudget::getThread).collect(Collectors.toList());
+        if (threads.equals(lastDeadlock)) {
+            return;
+        }
+        lastDeadlock = threads;
+        report(new PoolDeadlock(System.currentTimeMillis(), held,
+                threads.stream().map(Thread::getName).collect(Collectors.toList()),
+                holders.stream().map(ThreadBudget::getName).collect(Collectors.toList())));
+    }
+
+    private void report(PoolDeadlock deadlock) {
+        log.error("커넥션 풀 데드락 발견. 모든 커넥션({})을 가진 스레드가 커넥션을 더 기다리고 있습니다. threads={}, transactions={}",
+                deadlock.getHeldConnections(), deadlock.getThreadNames(), deadlock.getTransactionNames());
+        deadlocks.addFirst(deadlock);
+        while (deadlocks.size() > MAX_REPORTS) {
+            deadlocks.pollLast();
+        }
+    }
+
+    /**
+     * 최근에 발견한 순서로 반환한다
+     */
+    public List<PoolDeadlock> getDeadlocks() {
+        return new ArrayList<>(deadlocks);
+    }
+
+}
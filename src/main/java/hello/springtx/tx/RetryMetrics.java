@@ -0,0 +1,33 @@
+package hello.springtx.tx;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @RetryableTransaction 메소드별 재시도 통계 저장소
+ */
+public class RetryMetrics {
+
+    private final Map<String, RetryStats> statsByName = new ConcurrentHashMap<>();
+
+    RetryStats stats(String name) {
+        return statsByName.computeIfAbsent(name, RetryStats::new);
+    }
+
+    public Map<String, RetryStatsSnapshot> snapshot() {
+        Map<String, RetryStatsSnapshot> snapshot = new TreeMap<>();
+        statsByName.forEach((name, stats) -> snapshot.put(name, stats.snapshot()));
+        return snapshot;
+    }
+
+    public RetryStatsSnapshot snapshot(String name) {
+        RetryStats stats = statsByName.get(name);
+        return stats == null ? null : stats.snapshot();
+    }
+
+    public void reset() {
+        statsByName.clear();
+    }
+
+}
@@ -0,0 +1,30 @@
+package hello.springtx.tx;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @RetryableTransaction 메소드 하나에 대한 누적 통계
+ */
+public class RetryStats {
+
+    private final String name;
+
+    final LongAdder calls = new LongAdder();
+    final LongAdder attempts = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder recovered = new LongAdder();
+    final LongAdder exhausted = new LongAdder();
+    final LongAdder nonRetryable = new LongAdder();
+    final LongAdder backoffNanos = new LongAdder();
+    final LatencyHistogram latency = new LatencyHistogram();
+
+    RetryStats(String name) {
+        this.name = name;
+    }
+
+    RetryStatsSnapshot snapshot() {
+        return new RetryStatsSnapshot(name, calls.sum(), attempts.sum(), retries.sum(),
+                recovered.sum(), exhausted.sum(), nonRetryable.sum(), backoffNanos.sum(), latency.snapshot());
+    }
+
+}
@@ -0,0 +1,22 @@
+package hello.springtx.tx;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class RetryStatsSnapshot {
+
+    private final String name;         // 메소드 이름 (ex. hello.springtx.order.OrderService.completePayment)
+    private final long calls;          // 메소드 호출 횟수
+    private final long attempts;       // 트랜잭션 실행 횟수 (호출 + 재시도)
+    private final long retries;        // 재시도 횟수
+    private final long recovered;      // 재시도 후 성공한 호출
+    private final long exhausted;      // 최대 실행 횟수를 넘겨서 실패한 호출
+    private final long nonRetryable;   // 영구적인 실패로 바로 실패한 호출
+    private final long backoffNanos;   // 재시도 대기 시간 합계
+    private final LatencySnapshot latency; // 호출 전체 소요 시간 (재시도, 대기 포함)
+
+}
@@ -0,0 +1,38 @@
+package hello.springtx.tx;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 일시적인 실패(락 타임아웃, 데드락, 낙관적 락 충돌 ...)로 트랜잭션이 실패하면 트랜잭션 전체를 다시 실행한다
+ * 재시도는 @Transactional 보다 바깥에서 일어나므로 매 시도가 새 트랜잭션이다
+ * 이미 진행 중인 트랜잭션에 참여하는 호출은 재시도하지 않는다 (트랜잭션을 시작한 쪽이 재시도한다)
+ *
+ * 0 이하의 값은 springtx.tx.retry.* 설정을 사용한다
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryableTransaction {
+
+    /**
+     * 최초 실행을 포함한 최대 실행 횟수
+     */
+    int maxAttempts() default 0;
+
+    /**
+     * 첫 번째 재시도 전 대기 시간 (이후 multiplier 배씩 늘어난다)
+     */
+    long backoffMs() default 0;
+
+    long maxBackoffMs() default 0;
+
+    /**
+     * 일시적인 실패라도 재시도하지 않을 예외
+     */
+    Class<? extends Throwable>[] noRetryFor() default {};
+
+}
@@ -0,0 +1,54 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 예외 클래스 -> 롤백 여부 캐시 (트랜잭션 속성 하나, 즉 메서드 하나마다 만든다)
+ * RuleBasedTransactionAttribute 는 예외가 날 때마다 rollbackFor, noRollbackFor 규칙을 돌면서
+ * 예외 클래스 계층을 올라가며 클래스 이름(문자열)을 비교한다
+ * 규칙은 예외 클래스만 보고 결정하므로 클래스별로 한 번만 계산한다
+ */
+class RollbackDecisionCache {
+
+    // 익명 클래스 등으로 예외 타입이 계속 늘어나도 캐시가 커지지 않도록 제한한다 (넘으면 매번 계산한다)
+    private static final int MAX_EXCEPTION_TYPES = 64;
+
+    private final Predicate<Throwable> rules;
+    private final Map<Class<?>, Boolean> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules 캐시에 없을 때 롤백 여부를 계산한다 (RuleBasedTransactionAttribute.rollbackOn)
+     */
+    RollbackDecisionCache(Predicate<Throwable> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 규칙이 있는 RuleBasedTransactionAttribute 만 캐시한다
+     * 규칙이 없으면 instanceof 두 번(RuntimeException, Error)이라 캐시가 더 비싸고,
+     * 다른 구현(하위 클래스 포함)은 예외 객체를 보고 결정할 수 있다
+     */
+    static boolean isCacheable(TransactionAttribute attribute) {
+        return attribute != null
+                && attribute.getClass() == RuleBasedTransactionAttribute.class
+                && !((RuleBasedTransactionAttribute) attribute).getRollbackRules().isEmpty();
+    }
+
+    boolean rollbackOn(Throwable ex) {
+        Boolean decision = decisions.get(ex.getClass());
+        if (decision != null) {
+            return decision;
+        }
+        boolean rollback = rules.test(ex);
+        if (decisions.size() < MAX_EXCEPTION_TYPES) {
+            decisions.put(ex.getClass(), rollback);
+        }
+        return rollback;
+    }
+
+}
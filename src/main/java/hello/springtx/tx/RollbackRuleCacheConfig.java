@@ -0,0 +1,47 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * springtx.tx.rollback-rule-cache.enabled=true
+ * 트랜잭션 속성 소스를 RollbackRuleCachingAttributeSource 로 감싼다 (TxMetrics 와 관계없이 동작한다)
+ * AspectJ 모드는 TransactionWeavingConfig 가 직접 감싼다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.rollback-rule-cache.enabled", havingValue = "true")
+public class RollbackRuleCacheConfig {
+
+    @Bean
+    public static RollbackRuleCachePostProcessor rollbackRuleCachePostProcessor() {
+        return new RollbackRuleCachePostProcessor();
+    }
+
+    /**
+     * 인덱스(TransactionAttributeIndexPostProcessor) 다음, TxMetricsPostProcessor 전에 감싼다
+     */
+    static class RollbackRuleCachePostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof TransactionAttributeSource)
+                    || bean instanceof RollbackRuleCachingAttributeSource
+                    || bean instanceof InstrumentedTransactionAttributeSource) {
+                return bean;
+            }
+            return new RollbackRuleCachingAttributeSource((TransactionAttributeSource) bean);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+
+/**
+ * rollbackFor, noRollbackFor 규칙이 있는 트랜잭션 속성의 롤백 판단을 예외 클래스별로 캐시한다 (RollbackDecisionCache)
+ * 속성은 메서드마다 한 번 만들어지므로 (메서드, 예외 클래스) 별로 한 번만 규칙을 평가한다
+ * 감싼 속성도 RuleBasedTransactionAttribute 라서 이름, descriptor, qualifier, label 은 그대로다
+ */
+public class RollbackRuleCachingAttributeSource implements TransactionAttributeSource {
+
+    private final TransactionAttributeSource delegate;
+    private final TransactionAttributeCache cache = new TransactionAttributeCache(this::load);
+
+    public RollbackRuleCachingAttributeSource(TransactionAttributeSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCandidateClass(Class<?> targetClass) {
+        return delegate.isCandidateClass(targetClass);
+    }
+
+    @Override
+    public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+        return cache.get(method, targetClass);
+    }
+
+    private TransactionAttribute load(Method method, Class<?> targetClass) {
+        TransactionAttribute attribute = delegate.getTransactionAttribute(method, targetClass);
+        return RollbackDecisionCache.isCacheable(attribute)
+                ? new CachingRollbackRuleAttribute((RuleBasedTransactionAttribute) attribute)
+                : attribute;
+    }
+
+    private static class CachingRollbackRuleAttribute extends RuleBasedTransactionAttribute {
+
+        private final RollbackDecisionCache decisions = new RollbackDecisionCache(super::rollbackOn);
+
+        CachingRollbackRuleAttribute(RuleBasedTransactionAttribute other) {
+            super(other);
+        }
+
+        @Override
+        public boolean rollbackOn(Throwable ex) {
+            return decisions.rollbackOn(ex);
+        }
+
+    }
+
+}
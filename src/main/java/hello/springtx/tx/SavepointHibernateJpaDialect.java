@@ -0,0 +1,181 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HibernateJpaDialect 는 SavepointManager 를 제공하지 않아서 JpaTransactionManager 에서 NESTED 전파를 사용할 수 없다
+ * 트랜잭션 데이터를 SavepointManager 로 감싸서, 같은 커넥션의 JDBC savepoint 로 NESTED 를 처리한다
+ * - createSavepoint: 지금까지의 변경을 flush 한 뒤 savepoint 를 만든다 (savepoint 이전 변경이 DB에 반영되어 있어야 한다)
+ * - rollbackToSavepoint: savepoint 로 롤백하고 영속성 컨텍스트를 savepoint 시점으로 되돌린다
+ *   savepoint 이후에 영속 상태가 된 엔티티는 준영속으로 만들고, savepoint 이전부터 있던 엔티티 중 NESTED 안에서 바뀐 엔티티는 다시 조회한다
+ *   외부 트랜잭션이 이전에 조회한 엔티티는 그대로 영속 상태라서, 롤백 후의 변경도 커밋 시점에 반영된다
+ *
+ * 주의: 하이버네이트가 던진 예외(flush 실패 등)는 하이버네이트 트랜잭션을 rollback-only 로 표시한다 (JPA 스펙)
+ * 이 경우 savepoint 로 롤백해도 외부 트랜잭션은 롤백된다. 애플리케이션이 던진 예외만 savepoint 로 복구된다
+ */
+@Slf4j
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(entityManager.unwrap(Session.class), transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof SavepointTransactionData) {
+            transactionData = ((SavepointTransactionData) transactionData).delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    static class SavepointTransactionData implements SavepointManager {
+
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        private final Session session;
+        private final Object delegate;
+
+        SavepointTransactionData(Session session, Object delegate) {
+            this.session = session;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            try {
+                session.flush();
+                String name = "SAVEPOINT_" + SEQUENCE.incrementAndGet();
+                Savepoint savepoint = session.doReturningWork(connection -> connection.setSavepoint(name));
+                return new SavepointState(savepoint, loadedStates());
+            } catch (PersistenceException e) {
+                throw new CannotCreateTransactionException("savepoint 생성 실패", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            SavepointState state = (SavepointState) savepoint;
+            try {
+                // NESTED 안에서 아직 flush 되지 않은 변경(insert, update, delete)을 DB에 보낸 뒤 savepoint 로 함께 롤백한다
+                // 영속성 컨텍스트에는 flush 된 상태만 남으므로 savepoint 시점과 비교할 수 있다
+                session.flush();
+            } catch (PersistenceException e) {
+                // 하이버네이트 예외로 외부 트랜잭션도 rollback-only 가 되었다, 영속성 컨텍스트를 모두 비운다
+                log.debug("savepoint 롤백 전 flush 실패, 영속성 컨텍스트를 비웁니다.", e);
+                rollback(state);
+                session.clear();
+                return;
+            }
+            rollback(state);
+            restore(state);
+        }
+
+        private void rollback(SavepointState state) {
+            try {
+                session.doWork(connection -> connection.rollback(state.savepoint));
+            } catch (PersistenceException e) {
+                throw new TransactionSystemException("savepoint 롤백 실패", e);
+            }
+        }
+
+        /**
+         * - savepoint 이후에 영속 상태가 된 엔티티: 준영속 (DB 에는 롤백되어 없다)
+         * - savepoint 이후에 바뀐 엔티티: DB 에서 다시 조회 (롤백된 값으로 돌아간다)
+         * - savepoint 이후에 삭제된 엔티티: 다시 영속 상태로 만든다 (DB 에는 롤백되어 남아 있다)
+         */
+        private void restore(SavepointState state) {
+            SessionImplementor sessionImplementor = session.unwrap(SessionImplementor.class);
+            List<Object> added = new ArrayList<>();
+            List<Object> changed = new ArrayList<>();
+            Set<Object> remaining = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<Object, EntityEntry> managed : persistenceContext().reentrantSafeEntityEntries()) {
+                Object entity = managed.getKey();
+                EntityEntry entry = managed.getValue();
+                if (!state.loadedStates.containsKey(entity)) {
+                    added.add(entity);
+                    continue;
+                }
+                remaining.add(entity);
+                // 읽기 전용 엔티티는 로딩 상태를 가지지 않는다, 바뀔 수 없으므로 비교하지 않는다
+                Object[] before = state.loadedStates.get(entity);
+                Object[] after = entry.getLoadedState();
+                if (before != null && after != null && entry.getPersister().findDirty(after, before, entity, sessionImplementor) != null) {
+                    changed.add(entity);
+                }
+            }
+            added.forEach(session::evict);
+            changed.forEach(session::refresh);
+            for (Object entity : state.loadedStates.keySet()) {
+                if (!remaining.contains(entity)) {
+                    session.buildLockRequest(LockOptions.NONE).lock(entity);
+                }
+            }
+        }
+
+        private Map<Object, Object[]> loadedStates() {
+            Map<Object, Object[]> loadedStates = new IdentityHashMap<>();
+            for (Map.Entry<Object, EntityEntry> managed : persistenceContext().reentrantSafeEntityEntries()) {
+                Object[] loadedState = managed.getValue().getLoadedState();
+                loadedStates.put(managed.getKey(), loadedState != null ? loadedState.clone() : null);
+            }
+            return loadedStates;
+        }
+
+        private PersistenceContext persistenceContext() {
+            return session.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            try {
+                session.doWork(connection -> connection.releaseSavepoint(((SavepointState) savepoint).savepoint));
+            } catch (PersistenceException e) {
+                // 일부 드라이버는 release 를 지원하지 않는다. savepoint 는 트랜잭션이 끝날 때 함께 정리된다
+                log.debug("savepoint를 해제하지 못했습니다.", e);
+            }
+        }
+
+    }
+
+    /**
+     * JDBC savepoint 와 savepoint 시점에 영속 상태였던 엔티티의 로딩 상태(엔티티 -> 값 복사본)
+     */
+    private static class SavepointState {
+
+        private final Savepoint savepoint;
+        private final Map<Object, Object[]> loadedStates;
+
+        SavepointState(Savepoint savepoint, Map<Object, Object[]> loadedStates) {
+            this.savepoint = savepoint;
+            this.loadedStates = loadedStates;
+        }
+
+    }
+
+}
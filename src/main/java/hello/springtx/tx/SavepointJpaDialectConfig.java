@@ -0,0 +1,32 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * springtx.tx.savepoint.enabled=true (기본값)
+ * EntityManagerFactory 의 JpaDialect 를 SavepointHibernateJpaDialect 로 바꿔서 JpaTransactionManager 에서 NESTED 전파를 사용한다
+ * JpaTransactionManager 는 EntityManagerFactory 에서 JpaDialect 를 가져오므로 EntityManagerFactory 초기화 전에 설정한다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.savepoint.enabled", havingValue = "true", matchIfMissing = true)
+public class SavepointJpaDialectConfig {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+
+}
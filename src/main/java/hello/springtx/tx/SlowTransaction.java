@@ -0,0 +1,19 @@
+package hello.springtx.tx;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * TransactionWatchdog이 발견한 오래 열려있는 트랜잭션
+ */
+@Getter
+@RequiredArgsConstructor
+public class SlowTransaction {
+
+    private final String name;        // 트랜잭션 이름 (메소드)
+    private final String threadName;
+    private final long elapsedMillis; // 발견 시점까지 열려있던 시간
+    private final StackTraceElement[] stackTrace; // 발견 시점의 스레드 스택
+    private final boolean rollbackRequested;
+
+}
@@ -0,0 +1,63 @@
+package hello.springtx.tx;
+
+import org.springframework.core.MethodClassKey;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * (메서드, 대상 클래스) -> 트랜잭션 속성 캐시
+ * 트랜잭션 AOP 는 호출마다 속성을 찾으므로, 캐시에 있으면 키 객체(MethodClassKey)를 만들지 않고 Method 로 바로 찾는다
+ * 같은 메서드를 다른 대상 클래스로 호출하는 경우(상속)만 MethodClassKey 로 찾는다
+ */
+class TransactionAttributeCache {
+
+    private static final TransactionAttribute NO_TRANSACTION = new DefaultTransactionAttribute();
+
+    private final BiFunction<Method, Class<?>, TransactionAttribute> loader;
+    private final Map<Method, Entry> byMethod = new ConcurrentHashMap<>();
+    private final Map<MethodClassKey, TransactionAttribute> byMethodAndClass = new ConcurrentHashMap<>();
+
+    TransactionAttributeCache(BiFunction<Method, Class<?>, TransactionAttribute> loader) {
+        this.loader = loader;
+    }
+
+    TransactionAttribute get(Method method, Class<?> targetClass) {
+        Entry entry = byMethod.get(method);
+        TransactionAttribute cached = entry != null && entry.targetClass == targetClass
+                ? entry.attribute
+                : load(method, targetClass, entry == null);
+        return cached != NO_TRANSACTION ? cached : null;
+    }
+
+    private TransactionAttribute load(Method method, Class<?> targetClass, boolean firstTarget) {
+        MethodClassKey key = new MethodClassKey(method, targetClass);
+        TransactionAttribute cached = byMethodAndClass.get(key);
+        if (cached == null) {
+            TransactionAttribute attribute = loader.apply(method, targetClass);
+            cached = attribute != null ? attribute : NO_TRANSACTION;
+            byMethodAndClass.put(key, cached);
+        }
+        if (firstTarget) {
+            byMethod.putIfAbsent(method, new Entry(targetClass, cached));
+        }
+        return cached;
+    }
+
+    private static class Entry {
+
+        final Class<?> targetClass;
+        final TransactionAttribute attribute;
+
+        Entry(Class<?> targetClass, TransactionAttribute attribute) {
+            this.targetClass = targetClass;
+            this.attribute = attribute;
+        }
+
+    }
+
+}
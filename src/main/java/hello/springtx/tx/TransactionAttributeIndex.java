@@ -0,0 +1,203 @@
+package hello.springtx.tx;
+
+import org.springframework.core.Constants;
+import org.springframework.core.io.Resource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * 빌드 시점에 미리 계산한 @Transactional 속성 표 (클래스 이름 -> 메서드 시그니처 -> TransactionAttribute)
+ * 트랜잭션 메서드가 없는 클래스도 빈 항목으로 들어있어서, 인덱스에 있는 클래스는 어노테이션을 다시 찾지 않는다
+ *
+ * 파일 형식 (TransactionAttributeIndexGenerator 가 만든다)
+ * hello.springtx.apply.TxLevelTest$LevelService=
+ * hello.springtx.apply.TxLevelTest$LevelService#read()=PROPAGATION_REQUIRED,ISOLATION_DEFAULT,readOnly
+ * hello.springtx.apply.TxLevelTest$LevelService#write()=PROPAGATION_REQUIRED,ISOLATION_DEFAULT
+ */
+public class TransactionAttributeIndex {
+
+    public static final String DEFAULT_LOCATION = "classpath:META-INF/springtx/transaction-attributes.properties";
+
+    private static final Constants CONSTANTS = new Constants(TransactionDefinition.class);
+    private static final String PROPAGATION_PREFIX = "PROPAGATION_";
+    private static final String ISOLATION_PREFIX = "ISOLATION_";
+    private static final String TIMEOUT_PREFIX = "timeout_";
+    private static final String READ_ONLY = "readOnly";
+    private static final String QUALIFIER_PREFIX = "qualifier:";
+    private static final String LABEL_PREFIX = "label:";
+
+    private final Map<String, Map<String, TransactionAttribute>> attributes;
+
+    public TransactionAttributeIndex(Map<String, Map<String, TransactionAttribute>> attributes) {
+        Map<String, Map<String, TransactionAttribute>> copy = new HashMap<>(attributes.size());
+        attributes.forEach((className, methods) -> copy.put(className, Collections.unmodifiableMap(new HashMap<>(methods))));
+        this.attributes = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 인덱스에 없는 클래스면 null, 트랜잭션 메서드가 없는 클래스면 빈 Map
+     */
+    public Map<String, TransactionAttribute> getAttributes(String className) {
+        return attributes.get(className);
+    }
+
+    public Set<String> getClassNames() {
+        return attributes.keySet();
+    }
+
+    public int size() {
+        return attributes.size();
+    }
+
+    /**
+     * 메서드 이름과 파라미터 타입으로 만든 키 ex) order(hello.springtx.order.Order)
+     */
+    public static String signature(Method method) {
+        StringJoiner signature = new StringJoiner(",", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            signature.add(parameterType.getTypeName());
+        }
+        return signature.toString();
+    }
+
+    /**
+     * 파일로 옮길 수 있는 속성인지 확인한다
+     * 플레이스홀더(${...})를 쓰는 qualifier, label 은 런타임에 Environment 로 풀어야 하므로 인덱스에 넣지 않는다
+     */
+    public static boolean isIndexable(TransactionAttribute attribute) {
+        if (!(attribute instanceof RuleBasedTransactionAttribute)) {
+            return false;
+        }
+        RuleBasedTransactionAttribute ruleBased = (RuleBasedTransactionAttribute) attribute;
+        if (hasPlaceholder(ruleBased.getQualifier())) {
+            return false;
+        }
+        return ruleBased.getLabels().stream().noneMatch(TransactionAttributeIndex::hasPlaceholder);
+    }
+
+    private static boolean hasPlaceholder(String value) {
+        return value != null && value.contains("${");
+    }
+
+    public static TransactionAttributeIndex read(Resource resource) throws IOException {
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    public static TransactionAttributeIndex read(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        Map<String, Map<String, TransactionAttribute>> attributes = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int separator = key.indexOf('#');
+            if (separator < 0) {
+                attributes.computeIfAbsent(key, className -> new HashMap<>());
+                continue;
+            }
+            String className = key.substring(0, separator);
+            String signature = key.substring(separator + 1);
+            String descriptor = className + "." + signature.substring(0, signature.indexOf('('));
+            attributes.computeIfAbsent(className, name -> new HashMap<>())
+                    .put(signature, parse(properties.getProperty(key), descriptor));
+        }
+        return new TransactionAttributeIndex(attributes);
+    }
+
+    /**
+     * 클래스, 시그니처 순으로 정렬해서 쓴다 (빌드마다 같은 파일이 나온다)
+     */
+    public void write(Writer writer) throws IOException {
+        for (Map.Entry<String, Map<String, TransactionAttribute>> type : new TreeMap<>(attributes).entrySet()) {
+            writer.write(type.getKey() + "=\n");
+            for (Map.Entry<String, TransactionAttribute> method : new TreeMap<>(type.getValue()).entrySet()) {
+                writer.write(type.getKey() + "#" + method.getKey() + "=" + describe(method.getValue()) + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    static String describe(TransactionAttribute attribute) {
+        if (!isIndexable(attribute)) {
+            throw new IllegalArgumentException("인덱스에 넣을 수 없는 트랜잭션 속성입니다. attribute=" + attribute);
+        }
+        RuleBasedTransactionAttribute ruleBased = (RuleBasedTransactionAttribute) attribute;
+        StringJoiner description = new StringJoiner(",");
+        description.add(CONSTANTS.toCode(ruleBased.getPropagationBehavior(), PROPAGATION_PREFIX));
+        description.add(CONSTANTS.toCode(ruleBased.getIsolationLevel(), ISOLATION_PREFIX));
+        if (ruleBased.getTimeout() != TransactionDefinition.TIMEOUT_DEFAULT) {
+            description.add(TIMEOUT_PREFIX + ruleBased.getTimeout());
+        }
+        if (ruleBased.isReadOnly()) {
+            description.add(READ_ONLY);
+        }
+        for (RollbackRuleAttribute rule : ruleBased.getRollbackRules()) {
+            description.add((rule instanceof NoRollbackRuleAttribute ? "+" : "-") + rule.getExceptionName());
+        }
+        if (StringUtils.hasText(ruleBased.getQualifier())) {
+            description.add(QUALIFIER_PREFIX + ruleBased.getQualifier());
+        }
+        for (String label : ruleBased.getLabels()) {
+            description.add(LABEL_PREFIX + label);
+        }
+        return description.toString();
+    }
+
+    /**
+     * descriptor 는 AnnotationTransactionAttributeSource 와 같이 "클래스.메서드" 로 정한다
+     * 이름도 같은 값으로 정해둔다, 이름이 없으면 트랜잭션 AOP 가 호출마다 이름을 붙인 속성으로 한 번 더 감싼다
+     */
+    static TransactionAttribute parse(String description, String descriptor) {
+        RuleBasedTransactionAttribute attribute = new RuleBasedTransactionAttribute();
+        List<RollbackRuleAttribute> rollbackRules = new ArrayList<>();
+        Collection<String> labels = new ArrayList<>();
+        for (String token : StringUtils.commaDelimitedListToStringArray(description)) {
+            if (token.startsWith(PROPAGATION_PREFIX)) {
+                attribute.setPropagationBehaviorName(token);
+            } else if (token.startsWith(ISOLATION_PREFIX)) {
+                attribute.setIsolationLevelName(token);
+            } else if (token.startsWith(TIMEOUT_PREFIX)) {
+                attribute.setTimeout(Integer.parseInt(token.substring(TIMEOUT_PREFIX.length())));
+            } else if (token.equals(READ_ONLY)) {
+                attribute.setReadOnly(true);
+            } else if (token.startsWith("+")) {
+                rollbackRules.add(new NoRollbackRuleAttribute(token.substring(1)));
+            } else if (token.startsWith("-")) {
+                rollbackRules.add(new RollbackRuleAttribute(token.substring(1)));
+            } else if (token.startsWith(QUALIFIER_PREFIX)) {
+                attribute.setQualifier(token.substring(QUALIFIER_PREFIX.length()));
+            } else if (token.startsWith(LABEL_PREFIX)) {
+                labels.add(token.substring(LABEL_PREFIX.length()));
+            } else {
+                throw new IllegalArgumentException("알 수 없는 트랜잭션 속성입니다. token=" + token + ", descriptor=" + descriptor);
+            }
+        }
+        attribute.setRollbackRules(rollbackRules);
+        attribute.setLabels(labels);
+        attribute.setDescriptor(descriptor);
+        attribute.setName(descriptor);
+        return attribute;
+    }
+
+}
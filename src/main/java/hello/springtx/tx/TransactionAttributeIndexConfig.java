@@ -0,0 +1,84 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.io.IOException;
+
+/**
+ * 트랜잭션 속성 소스를 IndexedTransactionAttributeSource 로 감싼다 (빌드 시점에 만든 인덱스 사용)
+ * springtx.tx.attribute-index.location 에 인덱스 파일이 없으면 (IDE 에서 바로 실행 등) 원래 속성 소스를 그대로 쓴다
+ * springtx.tx.attribute-index.enabled=false 로 끌 수 있다
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.attribute-index.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionAttributeIndexConfig {
+
+    @Bean
+    public static TransactionAttributeIndexPostProcessor transactionAttributeIndexPostProcessor(Environment environment,
+                                                                                              ResourceLoader resourceLoader) {
+        return new TransactionAttributeIndexPostProcessor(environment, resourceLoader);
+    }
+
+    /**
+     * TxMetricsPostProcessor 가 감싸기 전에 원래 속성 소스를 감싸야 하므로 먼저 실행한다
+     */
+    static class TransactionAttributeIndexPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        private final Environment environment;
+        private final ResourceLoader resourceLoader;
+
+        TransactionAttributeIndexPostProcessor(Environment environment, ResourceLoader resourceLoader) {
+            this.environment = environment;
+            this.resourceLoader = resourceLoader;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof TransactionAttributeSource)
+                    || bean instanceof IndexedTransactionAttributeSource
+                    || bean instanceof InstrumentedTransactionAttributeSource) {
+                return bean;
+            }
+            TransactionAttributeIndex index = loadIndex();
+            if (index == null) {
+                return bean;
+            }
+            return new IndexedTransactionAttributeSource((TransactionAttributeSource) bean, index);
+        }
+
+        private TransactionAttributeIndex loadIndex() {
+            String location = environment.getProperty("springtx.tx.attribute-index.location",
+                    TransactionAttributeIndex.DEFAULT_LOCATION);
+            Resource resource = resourceLoader.getResource(location);
+            if (!resource.exists()) {
+                log.info("트랜잭션 속성 인덱스가 없습니다. 어노테이션으로 찾습니다. location={}", location);
+                return null;
+            }
+            try {
+                TransactionAttributeIndex index = TransactionAttributeIndex.read(resource);
+                log.info("트랜잭션 속성 인덱스 사용 classes={}, location={}", index.size(), location);
+                return index;
+            } catch (IOException e) {
+                throw new IllegalStateException("트랜잭션 속성 인덱스를 읽을 수 없습니다. location=" + location, e);
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+    }
+
+}
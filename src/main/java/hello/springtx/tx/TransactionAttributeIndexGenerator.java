@@ -0,0 +1,133 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Transactional 속성을 빌드 시점에 계산해서 TransactionAttributeIndex 파일로 저장한다
+ * ./gradlew generateTransactionAttributeIndex (classes 태스크에 포함되어 자동으로 실행된다)
+ *
+ * 런타임 트랜잭션 AOP 와 같은 AnnotationTransactionAttributeSource(public 메서드만)로 계산하므로 클래스, 메서드 레벨 우선순위가 같다
+ * 인덱스로 옮길 수 없는 클래스(플레이스홀더를 쓰는 timeoutString, qualifier, label)는 넣지 않는다, 런타임에 어노테이션으로 찾는다
+ */
+@Slf4j
+public class TransactionAttributeIndexGenerator {
+
+    private final TransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+    private final ClassLoader classLoader;
+
+    public TransactionAttributeIndexGenerator(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * args: 출력 파일, 스캔할 패키지...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("usage: TransactionAttributeIndexGenerator <output> <basePackage>...");
+        }
+        Path output = Paths.get(args[0]);
+        String[] basePackages = Arrays.copyOfRange(args, 1, args.length);
+        TransactionAttributeIndex index = new TransactionAttributeIndexGenerator(ClassUtils.getDefaultClassLoader())
+                .generate(basePackages);
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            index.write(writer);
+        }
+        log.info("트랜잭션 속성 인덱스 생성 classes={}, output={}", index.size(), output);
+    }
+
+    public TransactionAttributeIndex generate(String... basePackages) {
+        Map<String, Map<String, TransactionAttribute>> attributes = new HashMap<>();
+        for (String basePackage : basePackages) {
+            for (BeanDefinition candidate : scanner().findCandidateComponents(basePackage)) {
+                Class<?> type = load(candidate.getBeanClassName());
+                if (type == null) {
+                    continue;
+                }
+                Map<String, TransactionAttribute> methods = resolve(type);
+                if (methods != null) {
+                    attributes.put(type.getName(), methods);
+                }
+            }
+        }
+        return new TransactionAttributeIndex(attributes);
+    }
+
+    /**
+     * 클래스의 메서드별 트랜잭션 속성, 인덱스로 옮길 수 없는 속성이 있으면 null
+     */
+    public Map<String, TransactionAttribute> resolve(Class<?> type) {
+        Map<String, TransactionAttribute> methods = new HashMap<>();
+        if (!source.isCandidateClass(type)) {
+            return methods;
+        }
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(type)) {
+            TransactionAttribute attribute;
+            try {
+                attribute = source.getTransactionAttribute(method, type);
+            } catch (IllegalArgumentException e) {
+                // timeoutString 플레이스홀더는 런타임에만 풀 수 있다
+                log.warn("트랜잭션 속성을 미리 계산할 수 없습니다. type={}, method={}", type.getName(), method.getName(), e);
+                return null;
+            }
+            if (attribute == null) {
+                continue;
+            }
+            if (!TransactionAttributeIndex.isIndexable(attribute)) {
+                log.warn("인덱스에 넣을 수 없는 트랜잭션 속성입니다. type={}, method={}", type.getName(), method.getName());
+                return null;
+            }
+            methods.put(TransactionAttributeIndex.signature(method), attribute);
+        }
+        return methods;
+    }
+
+    private Class<?> load(String className) {
+        try {
+            return ClassUtils.forName(className, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("클래스를 읽을 수 없어서 인덱스에서 제외합니다. className={}", className, e);
+            return null;
+        }
+    }
+
+    /**
+     * 컴포넌트가 아니어도 프록시 대상이 될 수 있으므로 (@Bean 으로 등록하는 클래스) 구체 클래스는 모두 찾는다
+     */
+    private ClassPathScanningCandidateComponentProvider scanner() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                AnnotationMetadata metadata = beanDefinition.getMetadata();
+                return metadata.isIndependent() && !metadata.isInterface() && !metadata.isAnnotation();
+            }
+        };
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        return scanner;
+    }
+
+}
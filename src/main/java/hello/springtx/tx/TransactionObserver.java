@@ -0,0 +1,14 @@
+package hello.springtx.tx;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * InstrumentedTransactionManager가 트랜잭션을 시작한 직후 호출한다
+ * 트랜잭션 종료는 필요하면 TransactionSynchronization을 등록해서 받는다
+ */
+public interface TransactionObserver {
+
+    void afterBegin(TransactionDefinition definition, TransactionStatus status);
+
+}
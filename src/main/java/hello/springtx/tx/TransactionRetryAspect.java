@@ -0,0 +1,135 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @RetryableTransaction 메소드를 일시적인 실패가 나면 지수 백오프 + 지터로 다시 실행한다
+ * 트랜잭션 AOP(Ordered.LOWEST_PRECEDENCE) 보다 먼저 실행되므로 트랜잭션 경계 전체를 다시 실행한다
+ * 대기 시간은 [cap/2, cap] 에서 무작위로 고른다 (cap = backoff * multiplier^(시도-1), 최대 maxBackoff)
+ * 동시에 충돌한 트랜잭션들이 같은 시점에 다시 부딪히지 않도록 하기 위해서다
+ */
+@Slf4j
+@Aspect
+public class TransactionRetryAspect implements Ordered {
+
+    private static final ThreadLocal<Integer> currentAttempt = new ThreadLocal<>();
+
+    private final TransientFailureClassifier classifier;
+    private final RetryMetrics retryMetrics;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+
+    public TransactionRetryAspect(TransientFailureClassifier classifier, RetryMetrics retryMetrics,
+                                  int maxAttempts, long backoffMillis, long maxBackoffMillis, double multiplier) {
+        this.classifier = classifier;
+        this.retryMetrics = retryMetrics;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * 현재 스레드에서 실행 중인 @RetryableTransaction 시도 번호 (1부터 시작, 재시도 범위 밖이면 0)
+     * 재시도 시 이전 시도에서 바뀐 상태(ex. 할당된 id)를 되돌릴 때 사용한다
+     */
+    public static int currentAttempt() {
+        Integer attempt = currentAttempt.get();
+        return attempt == null ? 0 : attempt;
+    }
+
+    @Around("@annotation(retryable)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryableTransaction retryable) throws Throwable {
+        if (currentAttempt.get() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 바깥 트랜잭션에 참여하면 이 메소드만 다시 실행할 수 없다
+            return joinPoint.proceed();
+        }
+
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        RetryStats stats = retryMetrics.stats(
+                ClassUtils.getQualifiedMethodName(signature.getMethod(), joinPoint.getTarget().getClass()));
+        int attempts = retryable.maxAttempts() > 0 ? retryable.maxAttempts() : maxAttempts;
+        long backoff = retryable.backoffMs() > 0 ? retryable.backoffMs() : backoffMillis;
+        long maxBackoff = retryable.maxBackoffMs() > 0 ? retryable.maxBackoffMs() : maxBackoffMillis;
+
+        stats.calls.increment();
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                currentAttempt.set(attempt);
+                stats.attempts.increment();
+                try {
+                    Object result = joinPoint.proceed();
+                    if (attempt > 1) {
+                        stats.recovered.increment();
+                    }
+                    return result;
+                } catch (Throwable ex) {
+                    if (!isRetryable(ex, retryable)) {
+                        stats.nonRetryable.increment();
+                        throw ex;
+                    }
+                    if (attempt >= attempts) {
+                        stats.exhausted.increment();
+                        log.warn("트랜잭션 재시도 횟수 초과 method={}, attempts={}", signature.toShortString(), attempt, ex);
+                        throw ex;
+                    }
+                    long sleepMillis = backoff(attempt, backoff, maxBackoff);
+                    log.info("일시적인 실패, 트랜잭션을 다시 실행합니다. method={}, attempt={}, backoff={}ms, cause={}",
+                            signature.toShortString(), attempt, sleepMillis, ex.toString());
+                    stats.retries.increment();
+                    stats.backoffNanos.add(TimeUnit.MILLISECONDS.toNanos(sleepMillis));
+                    if (!sleep(sleepMillis)) {
+                        throw ex;
+                    }
+                }
+            }
+        } finally {
+            currentAttempt.remove();
+            stats.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private boolean isRetryable(Throwable ex, RetryableTransaction retryable) {
+        for (Class<? extends Throwable> noRetry : retryable.noRetryFor()) {
+            if (noRetry.isInstance(ex)) {
+                return false;
+            }
+        }
+        return classifier.isTransient(ex);
+    }
+
+    long backoff(int attempt, long backoff, long maxBackoff) {
+        double cap = Math.min(maxBackoff, backoff * Math.pow(multiplier, attempt - 1));
+        long half = (long) (cap / 2);
+        return half + ThreadLocalRandom.current().nextLong((long) cap - half + 1);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+}
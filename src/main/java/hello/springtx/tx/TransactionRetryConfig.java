@@ -0,0 +1,38 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @RetryableTransaction 재시도 AOP 를 등록한다
+ * springtx.tx.retry.enabled=false 로 끌 수 있다 (어노테이션이 있어도 한 번만 실행한다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.retry.enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionRetryConfig {
+
+    @Bean
+    public RetryMetrics retryMetrics() {
+        return new RetryMetrics();
+    }
+
+    @Bean
+    public TransientFailureClassifier transientFailureClassifier() {
+        return new TransientFailureClassifier();
+    }
+
+    @Bean
+    public TransactionRetryAspect transactionRetryAspect(
+            TransientFailureClassifier transientFailureClassifier,
+            RetryMetrics retryMetrics,
+            @Value("${springtx.tx.retry.max-attempts:3}") int maxAttempts,
+            @Value("${springtx.tx.retry.backoff-ms:20}") long backoffMillis,
+            @Value("${springtx.tx.retry.max-backoff-ms:1000}") long maxBackoffMillis,
+            @Value("${springtx.tx.retry.multiplier:2.0}") double multiplier) {
+        return new TransactionRetryAspect(transientFailureClassifier, retryMetrics,
+                maxAttempts, backoffMillis, maxBackoffMillis, multiplier);
+    }
+
+}
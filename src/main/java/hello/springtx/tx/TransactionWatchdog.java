@@ -0,0 +1,130 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 새로 시작한 물리 트랜잭션을 트랜잭션 동기화 매니저에 등록해두고, threshold 보다 오래 열려있는 트랜잭션을 찾는다
+ * 발견하면 트랜잭션 이름과 해당 스레드의 스택을 남긴다
+ * rollbackSlowTransactions 가 켜져 있으면 rollback-only로 표시하고, 커밋 시점에 TransactionTimedOutException으로 롤백한다
+ * (다른 스레드에서 트랜잭션 상태를 직접 바꾸지 않고, 트랜잭션을 가진 스레드가 커밋할 때 확인한다)
+ */
+@Slf4j
+public class TransactionWatchdog implements TransactionObserver {
+
+    private static final int MAX_REPORTS = 100;
+
+    private final long thresholdMillis;
+    private volatile boolean rollbackSlowTransactions;
+
+    private final Set<ActiveTransaction> active = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedDeque<SlowTransaction> slowTransactions = new ConcurrentLinkedDeque<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tx-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TransactionWatchdog(long thresholdMillis, long checkIntervalMillis, boolean rollbackSlowTransactions) {
+        this.thresholdMillis = thresholdMillis;
+        this.rollbackSlowTransactions = rollbackSlowTransactions;
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void afterBegin(TransactionDefinition definition, TransactionStatus status) {
+        if (!status.isNewTransaction() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        ActiveTransaction transaction = new ActiveTransaction(definition.getName(), Thread.currentThread());
+        active.add(transaction);
+        TransactionSynchronizationManager.registerSynchronization(transaction);
+    }
+
+    void check() {
+        long now = System.nanoTime();
+        for (ActiveTransaction transaction : active) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - transaction.startNanos);
+            if (transaction.reported || elapsedMillis < thresholdMillis) {
+                continue;
+            }
+            transaction.reported = true;
+            transaction.rollbackRequested = rollbackSlowTransactions;
+            report(new SlowTransaction(transaction.name, transaction.thread.getName(), elapsedMillis,
+                    transaction.thread.getStackTrace(), transaction.rollbackRequested));
+        }
+    }
+
+    private void report(SlowTransaction slow) {
+        Throwable stack = new Throwable("stack of " + slow.getThreadName());
+        stack.setStackTrace(slow.getStackTrace());
+        log.warn("오래 실행 중인 트랜잭션 발견. name={}, thread={}, elapsed={}ms, rollback={}",
+                slow.getName(), slow.getThreadName(), slow.getElapsedMillis(), slow.isRollbackRequested(), stack);
+
+        slowTransactions.addFirst(slow);
+        while (slowTransactions.size() > MAX_REPORTS) {
+            slowTransactions.pollLast();
+        }
+    }
+
+    /**
+     * 최근에 발견한 순서로 반환한다
+     */
+    public List<SlowTransaction> getSlowTransactions() {
+        return new ArrayList<>(slowTransactions);
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    public void setRollbackSlowTransactions(boolean rollbackSlowTransactions) {
+        this.rollbackSlowTransactions = rollbackSlowTransactions;
+    }
+
+    private class ActiveTransaction implements TransactionSynchronization {
+
+        final String name;
+        final Thread thread;
+        final long startNanos = System.nanoTime();
+        volatile boolean reported;
+        volatile boolean rollbackRequested;
+
+        ActiveTransaction(String name, Thread thread) {
+            this.name = name;
+            this.thread = thread;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (rollbackRequested) {
+                throw new TransactionTimedOutException(
+                        "트랜잭션이 " + thresholdMillis + "ms 를 넘어서 롤백합니다. name=" + name);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            active.remove(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * springtx.tx.watchdog.enabled=true
+ * InstrumentedTransactionManager를 통해 트랜잭션 시작을 전달 받으므로 springtx.tx.metrics.enabled=true 가 필요하다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.watchdog.enabled", havingValue = "true")
+public class TransactionWatchdogConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public TransactionWatchdog transactionWatchdog(
+            @Value("${springtx.tx.watchdog.threshold-ms:5000}") long thresholdMillis,
+            @Value("${springtx.tx.watchdog.check-interval-ms:1000}") long checkIntervalMillis,
+            @Value("${springtx.tx.watchdog.rollback:false}") boolean rollback) {
+        return new TransactionWatchdog(thresholdMillis, checkIntervalMillis, rollback);
+    }
+
+}
@@ -0,0 +1,64 @@
+package hello.springtx.tx;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.weaver.loadtime.Agent;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.aspectj.AnnotationTransactionAspect;
+import org.springframework.transaction.config.TransactionManagementConfigUtils;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * springtx.tx.mode=aspectj
+ * @Transactional 을 프록시 대신 AspectJ 로드 타임 위빙으로 적용한다 (AnnotationTransactionAspect)
+ * 트랜잭션 코드가 클래스 바이트코드에 들어가므로 this.internal() 같은 내부 호출에도 트랜잭션이 적용되고, 호출마다 프록시를 거치지 않는다
+ * 내부 호출 때문에 메서드를 별도 빈으로 분리할 필요가 없다 (InternalCallV2Test 의 InternalService)
+ *
+ * JVM 을 위빙 에이전트와 함께 띄워야 한다 (./gradlew test -PtxMode=aspectj)
+ * -javaagent:build/aspectj/aspectjweaver.jar -Dorg.aspectj.weaver.loadtime.configuration=META-INF/springtx-aop.xml
+ * --add-opens=java.base/java.lang=ALL-UNNAMED (JDK 16 이상)
+ * 에이전트 없이 띄우면 어떤 메서드에도 트랜잭션이 적용되지 않으므로 시작할 때 실패한다
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.mode", havingValue = "aspectj")
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class TransactionWeavingConfig {
+
+    /**
+     * 프록시 모드와 같이 롤백 원인을 TxMetrics 에 남기고 (InstrumentedTransactionAttributeSource), 롤백 규칙 판단을 캐시한다
+     * 위빙은 public 이 아닌 메서드에도 적용되므로 public 메서드만 담은 TransactionAttributeIndex 는 쓰지 않는다
+     */
+    @Bean
+    public SmartInitializingSingleton transactionWeavingInitializer(
+            @Qualifier(TransactionManagementConfigUtils.TRANSACTION_ASPECT_BEAN_NAME) AnnotationTransactionAspect transactionAspect,
+            @Value("${springtx.tx.rollback-rule-cache.enabled:false}") boolean rollbackRuleCache) {
+        if (!isWeavingAgentLoaded()) {
+            throw new IllegalStateException("springtx.tx.mode=aspectj 는 -javaagent:aspectjweaver.jar 로 실행해야 합니다");
+        }
+        return () -> {
+            TransactionAttributeSource source = new AnnotationTransactionAttributeSource(false);
+            if (rollbackRuleCache) {
+                source = new RollbackRuleCachingAttributeSource(source);
+            }
+            transactionAspect.setTransactionAttributeSource(new InstrumentedTransactionAttributeSource(source));
+            log.info("@Transactional 을 AspectJ 로드 타임 위빙으로 적용합니다");
+        };
+    }
+
+    public static boolean isWeavingAgentLoaded() {
+        try {
+            return Agent.getInstrumentation() != null;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package hello.springtx.tx;
+
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.TransactionSystemException;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+
+/**
+ * 예외를 일시적인 실패(다시 실행하면 성공할 수 있음)와 영구적인 실패로 나눈다
+ * - 일시적: 락 타임아웃, 데드락, 직렬화 실패, 낙관적 락 충돌, 쿼리 타임아웃
+ * - 영구적: 그 외 모든 예외, 체크 예외(비즈니스 예외)는 원인과 관계없이 항상 영구적이다
+ * 예외가 감싸져 있을 수 있으므로 cause 를 따라가면서 확인한다
+ *
+ * 롤백 중에 예외가 나면 TransactionSystemException 이 원래 예외를 덮어쓴다
+ * ex) H2 락 타임아웃은 SQLTimeoutException 이라서 HikariCP 가 커넥션을 닫아버리고 롤백이 실패한다
+ * 이때는 원래 예외(getApplicationException)로 판단한다, 재시도는 새 커넥션으로 실행된다
+ */
+public class TransientFailureClassifier {
+
+    // H2 에러 코드 (org.h2.api.ErrorCode)
+    private static final int H2_LOCK_TIMEOUT = 50200;
+    private static final int H2_DEADLOCK = 40001;
+    private static final int H2_CONCURRENT_UPDATE = 90131;
+
+    public boolean isTransient(Throwable ex) {
+        if (!(ex instanceof RuntimeException)) {
+            return false;
+        }
+        for (Throwable cause = ex; cause != null; cause = next(cause)) {
+            if (isTransientType(cause)) {
+                return true;
+            }
+            if (cause instanceof TransactionSystemException
+                    && isTransient(((TransactionSystemException) cause).getApplicationException())) {
+                return true;
+            }
+            if (cause instanceof SQLException && isTransientSql((SQLException) cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTransientType(Throwable ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof LockTimeoutException
+                || ex instanceof PessimisticLockException
+                || ex instanceof OptimisticLockException
+                || ex instanceof SQLTransientException
+                || ex instanceof SQLTransactionRollbackException;
+    }
+
+    private boolean isTransientSql(SQLException ex) {
+        // SQLState 40xxx: 트랜잭션 롤백 (직렬화 실패, 데드락)
+        String sqlState = ex.getSQLState();
+        if (sqlState != null && sqlState.startsWith("40")) {
+            return true;
+        }
+        int errorCode = ex.getErrorCode();
+        return errorCode == H2_LOCK_TIMEOUT || errorCode == H2_DEADLOCK || errorCode == H2_CONCURRENT_UPDATE;
+    }
+
+    private static Throwable next(Throwable ex) {
+        Throwable cause = ex.getCause();
+        return cause == ex ? null : cause;
+    }
+
+}
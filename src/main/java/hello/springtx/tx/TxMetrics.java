@@ -0,0 +1,66 @@
+package hello.springtx.tx;
+
+import org.springframework.core.Constants;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 트랜잭션 메소드, 전파 옵션별 통계 저장소
+ * 외부 모니터링 시스템 없이 애플리케이션 안에서 snapshot()으로 조회한다
+ */
+public class TxMetrics {
+
+    private static final Constants PROPAGATION = new Constants(TransactionDefinition.class);
+    private static final int PROPAGATION_TYPES = 7;
+    private static final String UNNAMED = "(unnamed)";
+
+    private final Map<String, AtomicReferenceArray<TxStats>> statsByName = new ConcurrentHashMap<>();
+
+    TxStats stats(TransactionDefinition definition) {
+        String name = definition.getName() != null ? definition.getName() : UNNAMED;
+        int propagation = definition.getPropagationBehavior();
+        AtomicReferenceArray<TxStats> byPropagation =
+                statsByName.computeIfAbsent(name, key -> new AtomicReferenceArray<>(PROPAGATION_TYPES));
+        TxStats stats = byPropagation.get(propagation);
+        if (stats == null) {
+            byPropagation.compareAndSet(propagation, null,
+                    new TxStats(name, PROPAGATION.toCode(propagation, "PROPAGATION_")));
+            stats = byPropagation.get(propagation);
+        }
+        return stats;
+    }
+
+    /**
+     * key: "트랜잭션 이름 전파옵션"
+     */
+    public Map<String, TxStatsSnapshot> snapshot() {
+        Map<String, TxStatsSnapshot> snapshot = new TreeMap<>();
+        statsByName.values().forEach(byPropagation -> {
+            for (int i = 0; i < byPropagation.length(); i++) {
+                TxStats stats = byPropagation.get(i);
+                if (stats != null) {
+                    TxStatsSnapshot each = stats.snapshot();
+                    snapshot.put(each.getName() + " " + each.getPropagation(), each);
+                }
+            }
+        });
+        return snapshot;
+    }
+
+    public TxStatsSnapshot snapshot(String name, int propagation) {
+        AtomicReferenceArray<TxStats> byPropagation = statsByName.get(name);
+        if (byPropagation == null || byPropagation.get(propagation) == null) {
+            return null;
+        }
+        return byPropagation.get(propagation).snapshot();
+    }
+
+    public void reset() {
+        statsByName.clear();
+    }
+
+}
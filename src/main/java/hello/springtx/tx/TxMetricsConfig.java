@@ -0,0 +1,73 @@
+package hello.springtx.tx;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.util.stream.Collectors;
+
+/**
+ * 트랜잭션 매니저와 트랜잭션 속성 소스를 감싸서 TxMetrics에 통계를 기록한다
+ * springtx.tx.metrics.enabled=true 일 때만 켜진다 (application.properties 에서 켜 두었다)
+ * springtx.tx.metrics.recycle-status=true 이면 트랜잭션 상태 객체를 스레드별로 재사용한다 (InstrumentedTransactionManager)
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.metrics.enabled", havingValue = "true")
+public class TxMetricsConfig {
+
+    @Bean
+    public TxMetrics txMetrics() {
+        return new TxMetrics();
+    }
+
+    @Bean
+    public static TxMetricsPostProcessor txMetricsPostProcessor(ObjectProvider<TxMetrics> txMetrics,
+                                                                ObjectProvider<TransactionObserver> observers,
+                                                                @Value("${springtx.tx.metrics.recycle-status:false}") boolean recycleStatus) {
+        return new TxMetricsPostProcessor(txMetrics, observers, recycleStatus);
+    }
+
+    /**
+     * 트랜잭션 속성 소스는 트랜잭션 AOP 어드바이저를 만들 때 생성된다
+     * 그보다 먼저 등록되도록 PriorityOrdered 로 만든다
+     */
+    static class TxMetricsPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+        private final ObjectProvider<TxMetrics> txMetrics;
+        private final ObjectProvider<TransactionObserver> observers;
+        private final boolean recycleStatus;
+
+        TxMetricsPostProcessor(ObjectProvider<TxMetrics> txMetrics, ObjectProvider<TransactionObserver> observers,
+                               boolean recycleStatus) {
+            this.txMetrics = txMetrics;
+            this.observers = observers;
+            this.recycleStatus = recycleStatus;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof PlatformTransactionManager && !(bean instanceof InstrumentedTransactionManager)) {
+                return new InstrumentedTransactionManager((PlatformTransactionManager) bean, txMetrics.getObject(),
+                        observers.orderedStream().collect(Collectors.toList()), recycleStatus);
+            }
+            if (bean instanceof TransactionAttributeSource && !(bean instanceof InstrumentedTransactionAttributeSource)) {
+                return new InstrumentedTransactionAttributeSource((TransactionAttributeSource) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+    }
+
+}
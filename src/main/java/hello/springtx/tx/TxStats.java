@@ -0,0 +1,41 @@
+package hello.springtx.tx;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 메소드 + 전파 옵션 하나에 대한 누적 통계
+ */
+public class TxStats {
+
+    private final String name;
+    private final String propagation;
+
+    final LatencyHistogram begin = new LatencyHistogram();
+    final LatencyHistogram hold = new LatencyHistogram();
+    final LatencyHistogram commit = new LatencyHistogram();
+    final LatencyHistogram rollback = new LatencyHistogram();
+    final LongAdder suspendCount = new LongAdder();
+    final LongAdder resumeCount = new LongAdder();
+    final Map<Class<?>, LongAdder> rollbackCauses = new ConcurrentHashMap<>();
+
+    TxStats(String name, String propagation) {
+        this.name = name;
+        this.propagation = propagation;
+    }
+
+    void recordRollbackCause(Class<?> cause) {
+        rollbackCauses.computeIfAbsent(cause, key -> new LongAdder()).increment();
+    }
+
+    TxStatsSnapshot snapshot() {
+        Map<String, Long> causes = new TreeMap<>();
+        rollbackCauses.forEach((cause, count) -> causes.put(cause.getName(), count.sum()));
+        return new TxStatsSnapshot(name, propagation,
+                begin.snapshot(), hold.snapshot(), commit.snapshot(), rollback.snapshot(),
+                suspendCount.sum(), resumeCount.sum(), causes);
+    }
+
+}
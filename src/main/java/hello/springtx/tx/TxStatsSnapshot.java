@@ -0,0 +1,32 @@
+package hello.springtx.tx;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Map;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class TxStatsSnapshot {
+
+    private final String name;        // 트랜잭션 이름 (ex. hello.springtx.order.OrderService.order)
+    private final String propagation; // PROPAGATION_REQUIRED, PROPAGATION_REQUIRES_NEW ...
+    private final LatencySnapshot begin;    // getTransaction() 소요 시간
+    private final LatencySnapshot hold;     // 신규 물리 트랜잭션 시작 ~ 종료 (커넥션 점유 시간)
+    private final LatencySnapshot commit;   // commit() 소요 시간
+    private final LatencySnapshot rollback; // rollback() 소요 시간
+    private final long suspendCount;
+    private final long resumeCount;
+    private final Map<String, Long> rollbackCauses; // 예외 클래스 이름 -> 롤백 횟수
+
+    public long getCommitCount() {
+        return commit.getCount();
+    }
+
+    public long getRollbackCount() {
+        return rollback.getCount();
+    }
+
+}
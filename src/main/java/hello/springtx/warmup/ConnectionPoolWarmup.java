@@ -0,0 +1,50 @@
+package hello.springtx.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HikariCP 는 시작 후 하우스키퍼 스레드가 minimumIdle 까지 커넥션을 비동기로 채운다
+ * 채워지기 전에 요청이 들어오면 요청 스레드가 커넥션 생성을 기다리므로, minimumIdle 만큼 커넥션을 빌렸다가 돌려줘서 다 채워질 때까지 기다린다
+ * 지연 프록시(LazyConnectionDataSource), 라우팅 DataSource 는 unwrap 으로 기본(primary) 풀을 찾는다
+ */
+@Slf4j
+public class ConnectionPoolWarmup {
+
+    private final DataSource dataSource;
+
+    public ConnectionPoolWarmup(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return 풀의 전체 커넥션 수, HikariCP 풀이 아니면 0
+     */
+    public int prefill() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            log.info("HikariCP 풀이 아니므로 커넥션을 미리 채우지 않습니다. dataSource={}", dataSource);
+            return 0;
+        }
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        List<Connection> connections = new ArrayList<>();
+        try {
+            // 첫 커넥션을 빌릴 때 풀이 만들어지고 minimumIdle(설정하지 않으면 maximumPoolSize)이 정해진다
+            connections.add(hikari.getConnection());
+            while (connections.size() < hikari.getMinimumIdle()) {
+                connections.add(hikari.getConnection());
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+        return hikari.getHikariPoolMXBean().getTotalConnections();
+    }
+
+}
@@ -0,0 +1,41 @@
+package hello.springtx.warmup;
+
+import javax.persistence.EntityManager;
+import javax.persistence.metamodel.EntityType;
+
+/**
+ * 엔티티마다 없는 id 로 한 번씩 조회해서 엔티티 로더, 결과 매핑, JDBC 실행 경로를 미리 실행한다 (클래스 로딩, JIT)
+ * id 가 Long 이 아닌 엔티티는 건너뛴다
+ */
+public class JpaMetamodelWarmup implements TransactionalInitializer {
+
+    public static final String NAME = "jpa-metamodel";
+
+    private static final Long ABSENT_ID = -1L;
+
+    private final EntityManager em;
+
+    public JpaMetamodelWarmup(EntityManager em) {
+        this.em = em;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void initialize() {
+        for (EntityType<?> entity : em.getMetamodel().getEntities()) {
+            if (entity.hasSingleIdAttribute() && entity.getIdType().getJavaType() == Long.class) {
+                em.find(entity.getJavaType(), ABSENT_ID);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package hello.springtx.warmup;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 자주 쓰는 조회를 없는 값으로 한 번씩 실행한다
+ * named query 는 시작 시점에 파싱되어 있지만, 리포지토리 트랜잭션 AOP(속성 캐시), 파라미터 바인딩, 쿼리 실행 경로는 첫 호출에 준비된다
+ */
+public class JpaQueryWarmup implements TransactionalInitializer {
+
+    public static final String NAME = "jpa-queries";
+
+    private static final String ABSENT = "__warmup__";
+
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+
+    public JpaQueryWarmup(MemberRepository memberRepository, LogRepository logRepository) {
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Set<String> getDependsOn() {
+        return Collections.singleton(JpaMetamodelWarmup.NAME);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void initialize() {
+        memberRepository.find(ABSENT);
+        logRepository.find(ABSENT);
+    }
+
+}
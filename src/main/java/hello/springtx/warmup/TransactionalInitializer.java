@@ -0,0 +1,30 @@
+package hello.springtx.warmup;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 애플리케이션이 요청을 받기 전에 실행할 초기화 작업
+ * TransactionalWarmup 이 작업마다 별도 스레드, 별도 트랜잭션으로 실행한다 (@PostConstruct 와 달리 트랜잭션이 적용된다)
+ */
+public interface TransactionalInitializer {
+
+    /**
+     * 리포트와 dependsOn 에서 사용하는 이름, 중복되면 안 된다
+     */
+    String getName();
+
+    /**
+     * 먼저 성공해야 하는 초기화 작업 이름, 하나라도 실패하면 이 작업은 실행하지 않는다 (SKIPPED)
+     */
+    default Set<String> getDependsOn() {
+        return Collections.emptySet();
+    }
+
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    void initialize() throws Exception;
+
+}
@@ -0,0 +1,219 @@
+package hello.springtx.warmup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 컨텍스트가 만들어진 뒤(ApplicationStartedEvent), 애플리케이션이 준비 완료(ApplicationReadyEvent)를 알리기 전에 워밍업을 실행한다
+ * 1. 커넥션 풀을 minimumIdle 까지 채운다 (ConnectionPoolWarmup)
+ * 2. 등록된 TransactionalInitializer 를 concurrency 개의 스레드에서 병렬로 실행한다
+ *    작업마다 새 트랜잭션에서 실행하고, dependsOn 에 있는 작업이 모두 성공한 뒤에 시작한다
+ *
+ * 리스너가 끝나야 ApplicationReadyEvent 가 발행되므로 워밍업 동안 애플리케이션은 준비 완료 상태가 아니다
+ * 실패한 작업은 리포트에 남기고 시작은 계속한다, failOnError=true 이면 시작을 실패시킨다
+ */
+@Slf4j
+public class TransactionalWarmup {
+
+    public static final String CONNECTION_POOL = "connection-pool";
+
+    private static final String TRANSACTION_NAME_PREFIX = "warmup:";
+
+    private final PlatformTransactionManager transactionManager;
+    private final List<TransactionalInitializer> initializers;
+    private final ConnectionPoolWarmup connectionPoolWarmup;
+    private final int concurrency;
+    private final boolean failOnError;
+
+    private volatile WarmupReport report;
+
+    /**
+     * @param connectionPoolWarmup null 이면 커넥션 풀을 채우지 않는다
+     * @param concurrency          동시에 실행하는 초기화 작업 수 (작업마다 커넥션을 1개 사용한다)
+     */
+    public TransactionalWarmup(PlatformTransactionManager transactionManager, List<TransactionalInitializer> initializers,
+                               ConnectionPoolWarmup connectionPoolWarmup, int concurrency, boolean failOnError) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency 는 1 이상이어야 합니다. concurrency=" + concurrency);
+        }
+        this.transactionManager = transactionManager;
+        this.initializers = initializers;
+        this.connectionPoolWarmup = connectionPoolWarmup;
+        this.concurrency = concurrency;
+        this.failOnError = failOnError;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        WarmupReport report = run();
+        if (failOnError && !report.isSuccess()) {
+            throw new IllegalStateException("워밍업이 실패했습니다. report=" + report);
+        }
+    }
+
+    public WarmupReport run() {
+        List<TransactionalInitializer> ordered = sort(initializers);
+        long start = System.nanoTime();
+        List<WarmupResult> results = new ArrayList<>();
+        if (connectionPoolWarmup != null) {
+            results.add(prefill(start));
+        }
+        if (!ordered.isEmpty()) {
+            results.addAll(initialize(ordered, start));
+        }
+        WarmupReport report = new WarmupReport(Duration.ofNanos(System.nanoTime() - start), Collections.unmodifiableList(results));
+        for (WarmupResult result : results) {
+            log.info("워밍업 name={}, status={}, startedAfter={}ms, elapsed={}ms, thread={}", result.getName(), result.getStatus(),
+                    result.getStartedAfter().toMillis(), result.getElapsed().toMillis(), result.getThread());
+        }
+        log.info("워밍업 완료 elapsed={}ms", report.getElapsed().toMillis());
+        this.report = report;
+        return report;
+    }
+
+    private WarmupResult prefill(long start) {
+        long begin = System.nanoTime();
+        try {
+            int connections = connectionPoolWarmup.prefill();
+            log.info("커넥션 풀 워밍업 connections={}", connections);
+            return result(CONNECTION_POOL, WarmupStatus.SUCCESS, start, begin, null);
+        } catch (Exception e) {
+            log.warn("커넥션 풀 워밍업 실패", e);
+            return result(CONNECTION_POOL, WarmupStatus.FAILED, start, begin, e);
+        }
+    }
+
+    private List<WarmupResult> initialize(List<TransactionalInitializer> ordered, long start) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, ordered.size()), threadFactory());
+        try {
+            Map<String, CompletableFuture<WarmupResult>> futures = new LinkedHashMap<>();
+            for (TransactionalInitializer initializer : ordered) {
+                List<CompletableFuture<WarmupResult>> dependencies = initializer.getDependsOn().stream()
+                        .map(futures::get)
+                        .collect(Collectors.toList());
+                CompletableFuture<WarmupResult> future = CompletableFuture
+                        .allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                        .thenApplyAsync(ignored -> execute(initializer, dependencies, start), executor);
+                futures.put(initializer.getName(), future);
+            }
+            return futures.values().stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private WarmupResult execute(TransactionalInitializer initializer, List<CompletableFuture<WarmupResult>> dependencies, long start) {
+        long begin = System.nanoTime();
+        boolean dependenciesSucceeded = dependencies.stream()
+                .allMatch(dependency -> dependency.join().getStatus() == WarmupStatus.SUCCESS);
+        if (!dependenciesSucceeded) {
+            return new WarmupResult(initializer.getName(), WarmupStatus.SKIPPED, null,
+                    Duration.ofNanos(begin - start), Duration.ZERO, null);
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setName(TRANSACTION_NAME_PREFIX + initializer.getName());
+        template.setReadOnly(initializer.isReadOnly());
+        try {
+            template.executeWithoutResult(status -> {
+                try {
+                    initializer.initialize();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new InitializerException(e);
+                }
+            });
+            return result(initializer.getName(), WarmupStatus.SUCCESS, start, begin, null);
+        } catch (RuntimeException e) {
+            Throwable failure = e instanceof InitializerException ? e.getCause() : e;
+            log.warn("워밍업 실패 name={}", initializer.getName(), failure);
+            return result(initializer.getName(), WarmupStatus.FAILED, start, begin, failure);
+        }
+    }
+
+    private static WarmupResult result(String name, WarmupStatus status, long start, long begin, Throwable failure) {
+        return new WarmupResult(name, status, Thread.currentThread().getName(),
+                Duration.ofNanos(begin - start), Duration.ofNanos(System.nanoTime() - begin), failure);
+    }
+
+    /**
+     * 의존하는 작업이 먼저 오도록 정렬한다 (같은 조건이면 등록 순서)
+     * 이름이 중복되거나, 없는 작업에 의존하거나, 순환 의존이 있으면 실행하지 않고 실패한다
+     */
+    static List<TransactionalInitializer> sort(List<TransactionalInitializer> initializers) {
+        Map<String, TransactionalInitializer> byName = new LinkedHashMap<>();
+        for (TransactionalInitializer initializer : initializers) {
+            if (byName.putIfAbsent(initializer.getName(), initializer) != null) {
+                throw new IllegalStateException("초기화 작업 이름이 중복됩니다. name=" + initializer.getName());
+            }
+        }
+        List<TransactionalInitializer> sorted = new ArrayList<>(byName.size());
+        Set<String> visited = new HashSet<>();
+        for (TransactionalInitializer initializer : byName.values()) {
+            visit(initializer, byName, visited, new LinkedHashSet<>(), sorted);
+        }
+        return sorted;
+    }
+
+    private static void visit(TransactionalInitializer initializer, Map<String, TransactionalInitializer> byName,
+                              Set<String> visited, Set<String> path, List<TransactionalInitializer> sorted) {
+        String name = initializer.getName();
+        if (visited.contains(name)) {
+            return;
+        }
+        if (!path.add(name)) {
+            throw new IllegalStateException("초기화 작업에 순환 의존이 있습니다. path=" + path + " -> " + name);
+        }
+        for (String dependsOn : initializer.getDependsOn()) {
+            TransactionalInitializer dependency = byName.get(dependsOn);
+            if (dependency == null) {
+                throw new IllegalStateException("등록되지 않은 초기화 작업에 의존합니다. name=" + name + ", dependsOn=" + dependsOn);
+            }
+            visit(dependency, byName, visited, path, sorted);
+        }
+        path.remove(name);
+        visited.add(name);
+        sorted.add(initializer);
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> new Thread(runnable, "warmup-" + sequence.incrementAndGet());
+    }
+
+    /**
+     * 마지막 워밍업 결과, 아직 실행하지 않았으면 null
+     */
+    public WarmupReport getReport() {
+        return report;
+    }
+
+    private static class InitializerException extends RuntimeException {
+
+        InitializerException(Exception cause) {
+            super(cause);
+        }
+
+    }
+
+}
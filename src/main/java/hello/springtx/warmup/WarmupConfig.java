@@ -0,0 +1,47 @@
+package hello.springtx.warmup;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
+
+/**
+ * springtx.warmup.enabled=true
+ * 애플리케이션이 준비 완료를 알리기 전에 커넥션 풀, JPA 를 워밍업하고 등록된 TransactionalInitializer 빈을 실행한다
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.warmup.enabled", havingValue = "true")
+public class WarmupConfig {
+
+    @Bean
+    public TransactionalWarmup transactionalWarmup(PlatformTransactionManager transactionManager,
+                                                   ObjectProvider<TransactionalInitializer> initializers,
+                                                   DataSource dataSource,
+                                                   @Value("${springtx.warmup.prefill-pool:true}") boolean prefillPool,
+                                                   @Value("${springtx.warmup.concurrency:4}") int concurrency,
+                                                   @Value("${springtx.warmup.fail-on-error:false}") boolean failOnError) {
+        return new TransactionalWarmup(transactionManager,
+                initializers.orderedStream().collect(Collectors.toList()),
+                prefillPool ? new ConnectionPoolWarmup(dataSource) : null,
+                concurrency, failOnError);
+    }
+
+    @Bean
+    public JpaMetamodelWarmup jpaMetamodelWarmup(EntityManager em) {
+        return new JpaMetamodelWarmup(em);
+    }
+
+    @Bean
+    public JpaQueryWarmup jpaQueryWarmup(MemberRepository memberRepository, LogRepository logRepository) {
+        return new JpaQueryWarmup(memberRepository, logRepository);
+    }
+
+}
@@ -0,0 +1,29 @@
+package hello.springtx.warmup;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class WarmupReport {
+
+    private final Duration elapsed;
+    private final List<WarmupResult> results; // 실행 순서 (의존하는 작업이 먼저)
+
+    public WarmupResult getResult(String name) {
+        return results.stream()
+                .filter(result -> result.getName().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public boolean isSuccess() {
+        return results.stream().allMatch(result -> result.getStatus() == WarmupStatus.SUCCESS);
+    }
+
+}
@@ -0,0 +1,25 @@
+package hello.springtx.warmup;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Duration;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class WarmupResult {
+
+    private final String name;
+    private final WarmupStatus status;
+    private final String thread;         // 실행한 스레드 (SKIPPED 이면 null)
+    private final Duration startedAfter; // 워밍업 시작부터 이 작업이 시작될 때까지
+    private final Duration elapsed;      // 트랜잭션 시작부터 커밋(롤백)까지
+    private final Throwable failure;
+
+    public Duration getFinishedAfter() {
+        return startedAfter.plus(elapsed);
+    }
+
+}
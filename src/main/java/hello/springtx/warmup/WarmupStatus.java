@@ -0,0 +1,5 @@
+package hello.springtx.warmup;
+
+public enum WarmupStatus {
+    SUCCESS, FAILED, SKIPPED
+}
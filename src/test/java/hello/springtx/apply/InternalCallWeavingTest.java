@@ -0,0 +1,96 @@
+package hello.springtx.apply;
+
+import hello.springtx.tx.TransactionWeavingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * InternalCallV1Test 와 같은 CallService 를 AspectJ 위빙으로 실행한다 (./gradlew test -PtxMode=aspectj)
+ * 프록시가 없으므로 external() 에서 this.internal() 을 호출해도 트랜잭션이 적용된다
+ */
+@Slf4j
+@SpringBootTest(properties = "springtx.tx.mode=aspectj")
+public class InternalCallWeavingTest {
+
+    @Autowired CallService callService;
+
+    @BeforeAll
+    static void weavingAgent() {
+        assumeTrue(TransactionWeavingConfig.isWeavingAgentLoaded(), "-javaagent:aspectjweaver.jar 로 실행");
+    }
+
+    @Test
+    void noProxy() {
+        log.info("callService class={}", callService.getClass());
+        assertThat(AopUtils.isAopProxy(callService)).isFalse();
+    }
+
+    @Test
+    void externalCall() {
+        assertThat(callService.external()).isTrue();
+    }
+
+    @Test
+    void internalCall_rollback() {
+        assertThatThrownBy(() -> callService.externalRollback())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(callService.rolledBack).isTrue();
+    }
+
+    @TestConfiguration
+    static class InternalCallWeavingTestConfig {
+        @Bean
+        CallService callService() {
+            return new CallService();
+        }
+    }
+
+    @Slf4j
+    static class CallService {
+
+        boolean rolledBack;
+
+        public boolean external() {
+            log.info("call external");
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+            return internal();
+        }
+
+        @Transactional
+        public boolean internal() {
+            log.info("call internal");
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        public void externalRollback() {
+            internalRollback();
+        }
+
+        @Transactional
+        void internalRollback() {
+            // public 이 아닌 메서드도 위빙된다
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    rolledBack = status == STATUS_ROLLED_BACK;
+                }
+            });
+            throw new IllegalStateException("롤백");
+        }
+
+    }
+
+}
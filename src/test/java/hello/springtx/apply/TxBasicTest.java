@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 @Slf4j
 @SpringBootTest // AOP가 동작해야 되니까 어노테이션 추가
@@ -27,6 +28,7 @@ public class TxBasicTest {
          */
 
         log.info("aop class = {}", basicService.getClass());
+        assumeFalse("aspectj".equals(System.getProperty("springtx.tx.mode")), "위빙 모드에서는 프록시를 만들지 않는다");
         assertThat(AopUtils.isAopProxy(basicService)).isTrue();
 
     }
@@ -0,0 +1,82 @@
+package hello.springtx.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalCacheTest {
+
+    @Test
+    void lru() {
+        LocalCache<String, Integer> cache = LocalCache.create("lru", 2, EvictionPolicy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        // b가 가장 오래 전에 사용되었다
+        cache.put("c", 3);
+
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).contains(3);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lfu() {
+        LocalCache<String, Integer> cache = LocalCache.create("lfu", 2, EvictionPolicy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        // b(2회)가 a(3회)보다 적게 사용되었다
+        cache.put("c", 3);
+        assertThat(cache.get("b")).isEmpty();
+
+        // c(1회)는 a(3회)보다 적게 사용되었다
+        cache.put("d", 4);
+        assertThat(cache.get("c")).isEmpty();
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("d")).contains(4);
+        assertThat(cache.getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void lfu_evict() {
+        LocalCache<String, Integer> cache = LocalCache.create("lfu", 2, EvictionPolicy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("b");
+        cache.evict("a");
+
+        cache.put("c", 3);
+        cache.get("c");
+        cache.get("c");
+        cache.put("d", 4);
+
+        // 최소 사용 횟수의 키(a)가 evict()로 제거된 뒤에도 b(2회)를 제거한다
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).contains(3);
+        assertThat(cache.get("d")).contains(4);
+    }
+
+    @Test
+    void metrics() {
+        LocalCache<String, Integer> cache = LocalCache.create("metrics", 10, EvictionPolicy.LRU);
+        cache.put("a", 1);
+
+        cache.get("a");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitRatio()).isEqualTo(0.75);
+        assertThat(cache.getPutCount()).isEqualTo(1);
+    }
+
+}
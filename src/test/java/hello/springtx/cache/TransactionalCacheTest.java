@@ -0,0 +1,235 @@
+package hello.springtx.cache;
+
+import hello.springtx.order.CachedOrder;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.CachedMember;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.cache.enabled=true")
+class TransactionalCacheTest {
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionalCache<Long, CachedOrder> orderCache;
+    @Autowired TransactionalCache<String, CachedMember> memberCache;
+    @Autowired TransactionTemplate txTemplate;
+
+    /**
+     * OrderServiceTest.complete
+     */
+    @Test
+    void order_complete() throws NotEnoughMoneyException {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+        long misses = orderCache.getCache().getMissCount();
+
+        // when
+        orderService.order(order);
+
+        // then : 커밋된 후에 캐시에 반영되어 DB를 조회하지 않는다
+        assertThat(orderService.findOrder(order.getId())).get()
+                .extracting(Order::getPayStatus).isEqualTo("완료");
+        assertThat(orderCache.getCache().getMissCount()).isEqualTo(misses);
+    }
+
+    /**
+     * OrderServiceTest.runtimeException
+     * 롤백된 주문은 트랜잭션 안에서 캐시에 넣었어도 다른 트랜잭션에 보이지 않는다
+     */
+    @Test
+    void order_runtimeException() {
+        // given
+        Order order = new Order();
+        order.setUsername("예외");
+        long discarded = orderCache.getDiscardedWriteCount();
+
+        // when
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(RuntimeException.class);
+
+        // then
+        assertThat(orderCache.getCache().get(order.getId())).isEmpty();
+        assertThat(orderService.findOrder(order.getId())).isEmpty();
+        assertThat(orderCache.getDiscardedWriteCount()).isEqualTo(discarded + 1);
+    }
+
+    /**
+     * OrderServiceTest.bizException
+     * 체크 예외는 커밋되므로 대기 상태의 주문이 캐시에 반영된다
+     */
+    @Test
+    void order_bizException() {
+        // given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        // when
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        // then
+        assertThat(orderCache.getCache().get(order.getId())).get()
+                .extracting(CachedOrder::getPayStatus).isEqualTo("대기");
+    }
+
+    /**
+     * 캐시에서 찾은 주문을 커밋 없이 바꿔도 캐시된 값은 바뀌지 않는다 (호출마다 스냅샷으로 만든 새 객체)
+     */
+    @Test
+    void order_modifyCachedWithoutCommit() throws NotEnoughMoneyException {
+        //given
+        Order order = new Order();
+        order.setUsername("정상");
+        orderService.order(order);
+
+        //when : 트랜잭션 밖에서 변경, 롤백되는 트랜잭션 안에서 변경
+        Order found = orderService.findOrder(order.getId()).get();
+        found.setPayStatus("변경");
+        txTemplate.executeWithoutResult(status -> {
+            orderService.findOrder(order.getId()).get().setPayStatus("변경");
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(orderCache.getCache().get(order.getId())).get()
+                .extracting(CachedOrder::getPayStatus).isEqualTo("완료");
+        Order again = orderService.findOrder(order.getId()).get();
+        assertThat(again).isNotSameAs(found);
+        assertThat(again.getPayStatus()).isEqualTo("완료");
+    }
+
+    /**
+     * 먼저 읽은 오래된 주문(version)이 늦게 반영되어도 새로 커밋된 주문을 덮어쓰지 않는다
+     */
+    @Test
+    void order_staleWrite() throws NotEnoughMoneyException {
+        //given : 대기 상태로 읽어둔 주문
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+        CachedOrder stale = CachedOrder.of(orderService.findOrder(order.getId()).get());
+        orderService.completePayment(order.getId());
+        long staleWrites = orderCache.getStaleWriteCount();
+
+        //when
+        txTemplate.executeWithoutResult(status -> orderCache.put(order.getId(), stale));
+
+        //then
+        assertThat(orderCache.getCache().get(order.getId())).get()
+                .extracting(CachedOrder::getPayStatus).isEqualTo("완료");
+        assertThat(orderCache.getStaleWriteCount()).isEqualTo(staleWrites + 1);
+    }
+
+    /**
+     * MemberServiceTest.outerTxOn_success
+     */
+    @Test
+    void member_outerTxOn_success() {
+        //given
+        String username = "cache outerTxOn_success";
+
+        //when
+        memberService.joinV1(username);
+
+        //then
+        assertThat(memberCache.getCache().get(username)).isPresent();
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * MemberServiceTest.outerTxOn_fail
+     * LogRepository 예외로 회원가입 전체가 롤백되면 MemberRepository 가 넣은 회원도 캐시에 반영되지 않는다
+     */
+    @Test
+    void member_outerTxOn_fail() {
+        //given
+        String username = "로그예외 cache outerTxOn_fail";
+
+        //when
+        assertThatThrownBy(() -> memberService.joinV1(username)).isInstanceOf(RuntimeException.class);
+
+        //then
+        assertThat(memberCache.getCache().get(username)).isEmpty();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    /**
+     * MemberServiceTest.recoverException_success
+     * 로그(REQUIRES_NEW)만 롤백되고 회원은 커밋된다
+     */
+    @Test
+    void member_recoverException_success() {
+        //given
+        String username = "로그예외 cache recoverException_success";
+
+        //when
+        memberService.joinV2(username);
+
+        //then
+        assertThat(memberCache.getCache().get(username)).isPresent();
+    }
+
+    /**
+     * 내부 트랜잭션의 rollbackOnly 때문에 외부 트랜잭션이 UnexpectedRollbackException 으로 롤백되는 경우
+     */
+    @Test
+    void member_unexpectedRollback() {
+        //given
+        String username = "cache unexpectedRollback";
+
+        //when
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            try {
+                txTemplate.executeWithoutResult(inner -> {
+                    throw new IllegalStateException("내부 트랜잭션 예외");
+                });
+            } catch (IllegalStateException e) {
+                log.info("예외 복구");
+            }
+        })).isInstanceOf(UnexpectedRollbackException.class);
+
+        //then
+        assertThat(memberCache.getCache().get(username)).isEmpty();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    /**
+     * 트랜잭션 안에서는 자신이 넣은 값이 보이고, REQUIRES_NEW 트랜잭션에는 보이지 않는다
+     */
+    @Test
+    void writeSet_isolation() {
+        //given
+        String username = "cache writeSet_isolation";
+        TransactionTemplate requiresNew = new TransactionTemplate(txTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            assertThat(memberCache.get(username)).isPresent();
+            requiresNew.executeWithoutResult(inner -> assertThat(memberCache.get(username)).isEmpty());
+            assertThat(memberCache.get(username)).isPresent();
+            assertThat(memberCache.getCache().get(username)).isEmpty();
+        });
+
+        //then
+        assertThat(memberCache.getCache().get(username)).isPresent();
+    }
+
+}
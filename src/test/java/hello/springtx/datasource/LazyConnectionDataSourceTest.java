@@ -0,0 +1,90 @@
+package hello.springtx.datasource;
+
+import hello.springtx.propagation.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.datasource.lazy-connection.enabled=true")
+class LazyConnectionDataSourceTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired CacheService cacheService;
+
+    @TestConfiguration
+    static class LazyConnectionConfig {
+        @Bean
+        CacheService cacheService(MemberRepository memberRepository) {
+            return new CacheService(memberRepository);
+        }
+    }
+
+    @Test
+    void noSql_noConnection() {
+        //given
+        LazyConnectionDataSource lazy = (LazyConnectionDataSource) dataSource;
+        long physical = lazy.getPhysicalConnectionCount();
+        long avoided = lazy.getAvoidedConnectionCount();
+
+        //when : 트랜잭션은 시작했지만 SQL은 실행하지 않는다
+        cacheService.cached();
+
+        //then : 커넥션 풀을 사용하지 않는다
+        assertThat(lazy.getPhysicalConnectionCount()).isEqualTo(physical);
+        assertThat(lazy.getAvoidedConnectionCount()).isEqualTo(avoided + 1);
+    }
+
+    @Test
+    void sql_connection() {
+        //given
+        LazyConnectionDataSource lazy = (LazyConnectionDataSource) dataSource;
+        long physical = lazy.getPhysicalConnectionCount();
+        long avoided = lazy.getAvoidedConnectionCount();
+
+        //when
+        cacheService.load();
+
+        //then : 첫 SQL 실행 시점에 커넥션을 획득한다
+        assertThat(lazy.getPhysicalConnectionCount()).isEqualTo(physical + 1);
+        assertThat(lazy.getAvoidedConnectionCount()).isEqualTo(avoided);
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    static class CacheService {
+
+        private final MemberRepository memberRepository;
+
+        // 캐시에서 바로 반환하는 경우 가정
+        @Transactional
+        public void cached() {
+            log.info("call cached");
+            printTxInfo();
+        }
+
+        @Transactional
+        public void load() {
+            log.info("call load");
+            printTxInfo();
+            memberRepository.find("load");
+        }
+
+        private void printTxInfo() {
+            boolean txActive = TransactionSynchronizationManager.isActualTransactionActive();
+            log.info("txActive = {}", txActive);
+        }
+
+    }
+
+}
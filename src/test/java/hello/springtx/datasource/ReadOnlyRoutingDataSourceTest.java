@@ -0,0 +1,138 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * primary, replica 를 서로 다른 H2 인스턴스, 별도의 커넥션 풀로 구성한다
+ * 스키마는 primary 에만 만들어지므로(ddl-auto) 테이블 구조만 replica 로 복사하고, 데이터는 각 테스트에서 한쪽에만 넣는다
+ * 라우터가 기록하는 횟수 대신 조회 결과와 각 Hikari 풀의 MXBean(사용 중인 커넥션 수)으로 확인한다
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.datasource.routing.enabled=true",
+        "springtx.datasource.primary.jdbc-url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "springtx.datasource.primary.pool-name=primary",
+        "springtx.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "springtx.datasource.replica.pool-name=replica"
+})
+class ReadOnlyRoutingDataSourceTest {
+
+    static final AtomicLong REPLICA_ID = new AtomicLong(1_000_000);
+
+    @Autowired ApplicationContext context;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired PlatformTransactionManager txManager;
+
+    HikariDataSource primary;
+    HikariDataSource replica;
+    JdbcTemplate primaryJdbc;
+    JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() {
+        primary = context.getBean("primaryDataSource", HikariDataSource.class);
+        replica = context.getBean("replicaDataSource", HikariDataSource.class);
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        copySchemaToReplica();
+    }
+
+    @Test
+    void readOnly_replica() {
+        //given : replica 에만 있는 회원, 로그
+        String username = "readOnly_replica";
+        replicaJdbc.update("insert into member (id, username, version) values (?, ?, 0)", REPLICA_ID.incrementAndGet(), username);
+        replicaJdbc.update("insert into log (id, message) values (?, ?)", REPLICA_ID.incrementAndGet(), username);
+        TransactionTemplate readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+
+        //when : @Transactional(readOnly = true)
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+        readOnly.executeWithoutResult(status -> {
+            assertTrue(memberRepository.find(username).isPresent());
+            //then : 트랜잭션이 replica 커넥션만 가지고 있다
+            assertThat(pool(replica).getActiveConnections()).isEqualTo(1);
+            assertThat(pool(primary).getActiveConnections()).isZero();
+        });
+
+        //then : primary 에는 없는 데이터다
+        assertThat(count(primaryJdbc, username)).isZero();
+        assertThat(pool(primary).getActiveConnections()).isZero();
+        assertThat(pool(replica).getActiveConnections()).isZero();
+    }
+
+    @Test
+    void write_primary() {
+        //when
+        memberService.joinV1("write_primary");
+
+        //then : replica 에는 쓰지 않는다
+        assertThat(count(primaryJdbc, "write_primary")).isEqualTo(1);
+        assertThat(count(replicaJdbc, "write_primary")).isZero();
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서 호출한 readOnly 메소드는 기존 트랜잭션에 참여하므로 primary 커넥션을 그대로 사용한다
+     */
+    @Test
+    void readOnly_joinWriteTx() {
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member("readOnly_joinWriteTx"));
+            // replica 에는 없는 회원이므로 primary 에서 조회한 것이다
+            assertTrue(memberRepository.find("readOnly_joinWriteTx").isPresent());
+            assertThat(pool(primary).getActiveConnections()).isEqualTo(1);
+            assertThat(pool(replica).getActiveConnections()).isZero();
+        });
+
+        //then
+        assertThat(count(replicaJdbc, "readOnly_joinWriteTx")).isZero();
+    }
+
+    private void copySchemaToReplica() {
+        Integer tables = replicaJdbc.queryForObject(
+                "select count(*) from information_schema.tables where table_name = 'MEMBER'", Integer.class);
+        if (tables != null && tables > 0) {
+            return;
+        }
+        for (String ddl : primaryJdbc.queryForList("script nodata", String.class)) {
+            if (ddl.startsWith("CREATE USER")) {
+                continue;
+            }
+            replicaJdbc.execute(ddl);
+        }
+    }
+
+    private static long count(JdbcTemplate jdbc, String username) {
+        Long count = jdbc.queryForObject("select count(*) from member where username = ?", Long.class, username);
+        return count != null ? count : 0;
+    }
+
+    private static HikariPoolMXBean pool(HikariDataSource dataSource) {
+        return dataSource.getHikariPoolMXBean();
+    }
+
+}
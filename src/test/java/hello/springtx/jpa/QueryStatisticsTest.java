@@ -0,0 +1,78 @@
+package hello.springtx.jpa;
+
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.jpa.statistics.enabled=true")
+class QueryStatisticsTest {
+
+    @Autowired QueryStatistics queryStatistics;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    /**
+     * named query 는 시작 시점에 파싱되어 있으므로 조회할 때마다 쿼리 플랜 캐시에서 찾는다
+     */
+    @Test
+    void namedQuery_planCacheHit() {
+        //given
+        memberRepository.save(new Member("namedQuery_planCacheHit"));
+        QueryStatisticsSnapshot before = queryStatistics.snapshot();
+
+        //when : 트랜잭션마다 조회
+        for (int i = 0; i < 3; i++) {
+            memberRepository.find("namedQuery_planCacheHit");
+            logRepository.find("namedQuery_planCacheHit");
+        }
+
+        //then
+        QueryStatisticsSnapshot diff = queryStatistics.snapshot().minus(before);
+        log.info("query statistics = {}, hitRate = {}", diff, diff.getQueryPlanCacheHitRate());
+        assertThat(diff.getQueryExecutions()).isEqualTo(6);
+        assertThat(diff.getQueryPlanCacheMisses()).isZero();
+        assertThat(diff.getQueryPlanCacheHitRate()).isEqualTo(1.0);
+    }
+
+    /**
+     * 하이버네이트는 같은 트랜잭션 안에서도 실행마다 PreparedStatement 를 새로 만든다
+     * 같은 커넥션(H2 세션)의 statement 캐시가 파싱 결과를 재사용한다
+     */
+    @Test
+    void withinTransaction() {
+        //given
+        QueryStatisticsSnapshot before = queryStatistics.snapshot();
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                memberRepository.find("withinTransaction");
+            }
+        });
+
+        //then
+        QueryStatisticsSnapshot diff = queryStatistics.snapshot().minus(before);
+        assertThat(diff.getQueryExecutions()).isEqualTo(5);
+        assertThat(diff.getPreparedStatements()).isEqualTo(5);
+        assertThat(diff.getQueryPlanCacheMisses()).isZero();
+    }
+
+    @Test
+    void statementCacheSize() {
+        String size = jdbcTemplate.queryForObject(
+                "select value from information_schema.settings where name = 'QUERY_CACHE_SIZE'", String.class);
+        assertThat(size).isEqualTo("64");
+    }
+
+}
@@ -0,0 +1,163 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 락을 걸지 않고 읽은 주문을 동시에 수정하면 먼저 커밋한 쪽만 반영되고 나머지는 충돌로 실패한다 (lost update 방지)
+ */
+@Slf4j
+@SpringBootTest
+class OrderOptimisticLockTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired TransactionTemplate txTemplate;
+
+    @Test
+    void lostUpdate_detected() throws Exception {
+        //given : 두 트랜잭션이 같은 주문(같은 version)을 락 없이 읽는다
+        Long orderId = pendingOrder();
+        Long version = orderRepository.findById(orderId).get().getVersion();
+        CountDownLatch bothRead = new CountDownLatch(2);
+        CountDownLatch firstCommitted = new CountDownLatch(1);
+
+        //when : 먼저 커밋한 변경만 반영되고, 늦게 커밋한 쪽은 덮어쓰지 못한다
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            Order order = read(orderId, bothRead);
+            order.setPayStatus("완료");
+        })).whenComplete((result, ex) -> firstCommitted.countDown());
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            Order order = read(orderId, bothRead);
+            await(firstCommitted);
+            order.setPayStatus("취소");
+        }));
+
+        //then
+        first.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+        Order order = orderRepository.findById(orderId).get();
+        assertThat(order.getPayStatus()).isEqualTo("완료");
+        assertThat(order.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void changePayStatus_staleVersion() {
+        //given
+        Long orderId = pendingOrder();
+        Long version = orderRepository.findById(orderId).get().getVersion();
+        orderService.changePayStatus(orderId, version, "완료");
+
+        //when : 이전에 읽은 version 으로 다시 바꾸려고 하면
+        assertThatThrownBy(() -> orderService.changePayStatus(orderId, version, "대기"))
+                .isInstanceOf(OrderConflictException.class)
+                .hasFieldOrPropertyWithValue("orderId", orderId)
+                .hasFieldOrPropertyWithValue("expectedVersion", version);
+
+        //then
+        Order order = orderRepository.findById(orderId).get();
+        assertThat(order.getPayStatus()).isEqualTo("완료");
+        assertThat(order.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void changePayStatus_concurrent() throws Exception {
+        //given : 16개 스레드가 같은 version 을 읽은 상태에서 동시에 결제 상태를 바꾼다
+        int threads = 16;
+        Long orderId = pendingOrder();
+        Long version = orderRepository.findById(orderId).get().getVersion();
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String payStatus = "완료-" + i;
+            results.add(executor.submit(() -> {
+                barrier.await();
+                try {
+                    orderService.changePayStatus(orderId, version, payStatus);
+                    return true;
+                } catch (OrderConflictException e) {
+                    return false;
+                }
+            }));
+        }
+
+        //when
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(10, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        executor.shutdown();
+
+        //then : 한 건만 반영되고 나머지 15건은 덮어쓰지 않고 충돌로 실패한다
+        Order order = orderRepository.findById(orderId).get();
+        log.info("payStatus={}, version={}", order.getPayStatus(), order.getVersion());
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(order.getVersion()).isEqualTo(version + 1);
+        assertThat(order.getPayStatus()).startsWith("완료-");
+    }
+
+    @Test
+    void completePayment_idempotent() {
+        //given
+        Long orderId = pendingOrder();
+        Long version = orderRepository.findById(orderId).get().getVersion();
+
+        //when
+        orderService.completePayment(orderId);
+        orderService.completePayment(orderId);
+
+        //then : 이미 완료된 주문은 다시 update 하지 않는다
+        Order order = orderRepository.findById(orderId).get();
+        assertThat(order.getPayStatus()).isEqualTo("완료");
+        assertThat(order.getVersion()).isEqualTo(version + 1);
+    }
+
+    private Order read(Long orderId, CountDownLatch bothRead) {
+        Order order = orderRepository.findById(orderId).get();
+        bothRead.countDown();
+        await(bothRead);
+        return order;
+    }
+
+    private Long pendingOrder() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            log.info("결제 대기 주문 생성 orderId={}", order.getId());
+        }
+        return order.getId();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+package hello.springtx.order;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.outbox.batch-size=7",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+        "logging.level.org.springframework.transaction.interceptor=INFO"
+})
+class OrderOutboxTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderOutboxPoller poller;
+    @Autowired OrderOutboxRepository outboxRepository;
+    @Autowired RecordingPublisher publisher;
+
+    @TestConfiguration
+    static class OutboxTestConfig {
+        @Bean
+        @Primary
+        RecordingPublisher recordingPublisher() {
+            return new RecordingPublisher();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        poller.pollAll();
+        publisher.clear();
+    }
+
+    @Test
+    void outbox_sameTransaction() throws NotEnoughMoneyException {
+        // given
+        Order complete = order("정상");
+        Order failed = new Order();
+        failed.setUsername("예외");
+
+        // when
+        orderService.order(complete);
+        assertThatThrownBy(() -> orderService.order(failed)).isInstanceOf(RuntimeException.class);
+        Order pending = new Order();
+        pending.setUsername("잔고부족");
+        assertThatThrownBy(() -> orderService.order(pending)).isInstanceOf(NotEnoughMoneyException.class);
+        poller.pollAll();
+
+        // then : 커밋된 주문만 발행되고, 롤백된 주문의 이벤트는 없다
+        assertThat(publisher.events())
+                .extracting(OrderOutbox::getOrderId, OrderOutbox::getPayStatus)
+                .containsExactly(
+                        tuple(complete.getId(), "완료"),
+                        tuple(pending.getId(), "대기"));
+        assertThat(outboxRepository.countByPublishedAtIsNull()).isZero();
+    }
+
+    @Test
+    void outbox_order() throws NotEnoughMoneyException {
+        // given
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Order order = order("정상");
+            orderService.order(order);
+            orderIds.add(order.getId());
+        }
+
+        // when : batchSize(7) 단위로 나눠서 발행
+        assertThat(poller.pollOnce()).isEqualTo(7);
+        poller.pollAll();
+
+        // then : 저장된 순서대로 발행된다
+        assertThat(publisher.events()).extracting(OrderOutbox::getOrderId).containsExactlyElementsOf(orderIds);
+        assertThat(publisher.batchSizes()).containsExactly(7, 7, 6);
+    }
+
+    @Test
+    void outbox_publishFailure() throws NotEnoughMoneyException {
+        // given
+        Order order = order("정상");
+        orderService.order(order);
+        publisher.failNext();
+
+        // when
+        assertThatThrownBy(() -> poller.pollOnce()).isInstanceOf(IllegalStateException.class);
+        poller.pollAll();
+
+        // then : 발행에 실패한 이벤트는 다시 발행된다
+        assertThat(publisher.events()).extracting(OrderOutbox::getOrderId).containsExactly(order.getId());
+    }
+
+    /**
+     * 여러 스레드가 주문하는 동안 여러 poller 가 동시에 발행해도 이벤트는 유실, 중복 없이 한 번씩 발행된다
+     */
+    @Test
+    void outbox_concurrent() throws Exception {
+        // given
+        int orderThreads = 8;
+        int ordersPerThread = 50;
+        int pollers = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(orderThreads + pollers);
+        AtomicBoolean ordering = new AtomicBoolean(true);
+        long start = System.nanoTime();
+
+        // when
+        List<Future<List<Long>>> orderFutures = new ArrayList<>();
+        for (int t = 0; t < orderThreads; t++) {
+            orderFutures.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    Order order = order("정상");
+                    orderService.order(order);
+                    ids.add(order.getId());
+                }
+                return ids;
+            }));
+        }
+        List<Future<?>> pollerFutures = new ArrayList<>();
+        for (int p = 0; p < pollers; p++) {
+            pollerFutures.add(executor.submit(() -> {
+                while (ordering.get() || outboxRepository.countByPublishedAtIsNull() > 0) {
+                    poller.pollAll();
+                }
+            }));
+        }
+        List<Long> orderIds = new ArrayList<>();
+        for (Future<List<Long>> future : orderFutures) {
+            orderIds.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        ordering.set(false);
+        for (Future<?> future : pollerFutures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        List<Long> published = publisher.events().stream().map(OrderOutbox::getOrderId).collect(Collectors.toList());
+        log.info("orders={}, published={}, elapsed={}ms, throughput={}/s",
+                orderIds.size(), published.size(), elapsedMillis, orderIds.size() * 1000L / Math.max(elapsedMillis, 1));
+        assertThat(published).hasSize(orderThreads * ordersPerThread);
+        assertThat(published).containsExactlyInAnyOrderElementsOf(orderIds);
+    }
+
+    private static Order order(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+
+    static class RecordingPublisher implements OrderEventPublisher {
+
+        private final List<OrderOutbox> events = Collections.synchronizedList(new ArrayList<>());
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicBoolean failNext = new AtomicBoolean();
+
+        @Override
+        public void publish(List<OrderOutbox> batch) {
+            if (failNext.compareAndSet(true, false)) {
+                throw new IllegalStateException("발행 실패");
+            }
+            events.addAll(batch);
+            batchSizes.add(batch.size());
+        }
+
+        List<OrderOutbox> events() {
+            return new ArrayList<>(events);
+        }
+
+        List<Integer> batchSizes() {
+            return new ArrayList<>(batchSizes);
+        }
+
+        void failNext() {
+            failNext.set(true);
+        }
+
+        void clear() {
+            events.clear();
+            batchSizes.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,152 @@
+package hello.springtx.order;
+
+import hello.springtx.tx.RetryMetrics;
+import hello.springtx.tx.RetryStatsSnapshot;
+import hello.springtx.tx.TransientFailureClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * orders 테이블 행 락을 다른 트랜잭션이 잡고 있으면 LOCK_TIMEOUT(100ms) 후에 실패한다
+ * @RetryableTransaction 은 이런 일시적인 실패만 트랜잭션 전체를 다시 실행한다
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:retry;LOCK_TIMEOUT=100;DB_CLOSE_DELAY=-1",
+        "springtx.tx.retry.max-attempts=5",
+        "springtx.tx.retry.backoff-ms=20"
+})
+class OrderRetryTest {
+
+    static final String COMPLETE_PAYMENT = OrderService.class.getName() + ".completePayment";
+    static final String ORDER = OrderService.class.getName() + ".order";
+
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired EntityManager em;
+    @Autowired RetryMetrics retryMetrics;
+    @Autowired TransientFailureClassifier classifier;
+
+    @Test
+    void lockConflict_retry() throws Exception {
+        //given : 결제 대기 주문의 행 락을 다른 트랜잭션이 600ms 동안 잡고 있다
+        Long orderId = pendingOrder();
+        RetryStatsSnapshot before = stats(COMPLETE_PAYMENT);
+        CompletableFuture<Void> holder = holdLock(orderId, 600);
+
+        //when : 처음 몇 번은 락 타임아웃으로 실패하고 재시도한다
+        orderService.completePayment(orderId);
+        holder.get(5, TimeUnit.SECONDS);
+
+        //then
+        RetryStatsSnapshot after = stats(COMPLETE_PAYMENT);
+        log.info("retry stats = {}", after);
+        assertThat(orderRepository.findById(orderId).get().getPayStatus()).isEqualTo("완료");
+        assertThat(after.getRetries() - before.getRetries()).isPositive();
+        assertThat(after.getRecovered() - before.getRecovered()).isEqualTo(1);
+        assertThat(after.getAttempts() - before.getAttempts())
+                .isEqualTo(1 + after.getRetries() - before.getRetries());
+        assertThat(after.getLatency().getMax()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void lockConflict_exhausted() throws Exception {
+        //given : 최대 재시도 시간보다 오래 락을 잡고 있다
+        Long orderId = pendingOrder();
+        RetryStatsSnapshot before = stats(COMPLETE_PAYMENT);
+        CompletableFuture<Void> holder = holdLock(orderId, 3000);
+
+        //when : 락 타임아웃(SQLTimeoutException)이 나면 HikariCP 가 커넥션을 닫으므로 롤백 예외로 바뀔 수 있다
+        assertThatThrownBy(() -> orderService.completePayment(orderId))
+                .isInstanceOfAny(PessimisticLockingFailureException.class, TransactionSystemException.class)
+                .satisfies(ex -> assertThat(classifier.isTransient(ex)).isTrue());
+        holder.get(5, TimeUnit.SECONDS);
+
+        //then : 5번 실행하고 포기, 주문은 바뀌지 않았다
+        RetryStatsSnapshot after = stats(COMPLETE_PAYMENT);
+        assertThat(after.getAttempts() - before.getAttempts()).isEqualTo(5);
+        assertThat(after.getExhausted() - before.getExhausted()).isEqualTo(1);
+        assertThat(orderRepository.findById(orderId).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void bizException_noRetry() {
+        //given
+        RetryStatsSnapshot before = stats(ORDER);
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        //when
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        //then : 비즈니스 예외는 한 번만 실행한다
+        RetryStatsSnapshot after = stats(ORDER);
+        assertThat(after.getAttempts() - before.getAttempts()).isEqualTo(1);
+        assertThat(after.getRetries() - before.getRetries()).isZero();
+        assertThat(after.getNonRetryable() - before.getNonRetryable()).isEqualTo(1);
+    }
+
+    @Test
+    void classify() {
+        assertThat(classifier.isTransient(new NotEnoughMoneyException("잔고가 부족합니다."))).isFalse();
+        assertThat(classifier.isTransient(new RuntimeException("시스템 예외"))).isFalse();
+        assertThat(classifier.isTransient(new DataIntegrityViolationException("중복"))).isFalse();
+        assertThat(classifier.isTransient(new CannotAcquireLockException("락 타임아웃"))).isTrue();
+        assertThat(classifier.isTransient(new IllegalStateException(
+                new SQLException("Timeout trying to lock table", "HYT00", 50200)))).isTrue();
+        assertThat(classifier.isTransient(new IllegalStateException(
+                new SQLException("serialization failure", "40001")))).isTrue();
+    }
+
+    private Long pendingOrder() {
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            log.info("결제 대기 주문 생성 orderId={}", order.getId());
+        }
+        return order.getId();
+    }
+
+    private CompletableFuture<Void> holdLock(Long orderId, long holdMillis) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> txTemplate.executeWithoutResult(status -> {
+            // select ... for update (다른 트랜잭션은 LOCK_TIMEOUT 까지 기다린다)
+            em.find(Order.class, orderId, LockModeType.PESSIMISTIC_WRITE);
+            locked.countDown();
+            try {
+                Thread.sleep(holdMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+        return holder;
+    }
+
+    private RetryStatsSnapshot stats(String name) {
+        RetryStatsSnapshot snapshot = retryMetrics.snapshot(name);
+        return snapshot != null ? snapshot
+                : new RetryStatsSnapshot(name, 0, 0, 0, 0, 0, 0, 0, null);
+    }
+
+}
@@ -6,7 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,6 +22,7 @@ class OrderServiceTest {
 
     @Autowired OrderService orderService;
     @Autowired OrderRepository orderRepository;
+    @Autowired TransactionTemplate txTemplate;
 
     @Test
     void complete() throws NotEnoughMoneyException {
@@ -55,10 +59,100 @@ class OrderServiceTest {
             orderService.order(order);
         } catch (NotEnoughMoneyException e) {
             log.info("고객에게 잔고 부족을 알리고 별도의 계좌로 입금하도록 안내");
+            assertThat(e.getStackTrace()).isEmpty(); // 비즈니스 결과라서 스택 트레이스를 만들지 않는다
         }
         // then
         Order findOrder = orderRepository.findById(order.getId()).get();
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
     }
 
-}
\ No newline at end of file
+    @Test
+    void orderAll() {
+        // given : 청크 크기(100)를 넘는 주문
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Order order = new Order();
+            order.setUsername(i % 10 == 0 ? "예외" : i % 10 == 1 ? "잔고부족" : "정상");
+            orders.add(order);
+        }
+        // when
+        OrderReport report = orderService.orderAll(orders);
+        // then : 시스템 예외만 저장되지 않고, 잔고 부족은 대기 상태로 저장된다
+        assertThat(report.getResults()).hasSize(250);
+        assertThat(report.count(OrderOutcome.COMPLETED)).isEqualTo(200);
+        assertThat(report.count(OrderOutcome.PENDING)).isEqualTo(25);
+        assertThat(report.count(OrderOutcome.FAILED)).isEqualTo(25);
+        for (OrderResult result : report.getResults()) {
+            Optional<Order> findOrder = Optional.ofNullable(result.getOrder().getId()).flatMap(orderRepository::findById);
+            switch (result.getOutcome()) {
+                case COMPLETED:
+                    assertThat(findOrder.get().getPayStatus()).isEqualTo("완료");
+                    break;
+                case PENDING:
+                    assertThat(findOrder.get().getPayStatus()).isEqualTo("대기");
+                    break;
+                default:
+                    assertThat(findOrder).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void orderAll_chunkFailure() {
+        // given : DB 저장에 실패하는 주문이 같은 청크에 섞여 있다
+        Order broken = new Order();
+        broken.setUsername("x".repeat(300));
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order();
+            order.setUsername("정상");
+            orders.add(order);
+        }
+        orders.add(5, broken);
+        // when
+        OrderReport report = orderService.orderAll(orders);
+        // then : 청크는 롤백되지만 건별로 다시 처리해서 실패한 주문만 제외된다
+        assertThat(report.count(OrderOutcome.COMPLETED)).isEqualTo(10);
+        assertThat(report.getResults().get(5).getOutcome()).isEqualTo(OrderOutcome.FAILED);
+        assertThat(orderRepository.findById(orders.get(0).getId())).isPresent();
+    }
+
+    @Test
+    void orderAll_chunkFailureInOuterTx() {
+        // given : 바깥 트랜잭션 안에서 실패하는 청크를 처리한다
+        Order broken = new Order();
+        broken.setUsername("x".repeat(300));
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order();
+            order.setUsername("정상");
+            orders.add(order);
+        }
+        orders.add(5, broken);
+        // when : 청크가 바깥 트랜잭션에 참여하지 않으므로 바깥 트랜잭션은 rollback-only 가 되지 않는다
+        OrderReport report = txTemplate.execute(status -> {
+            OrderReport result = orderService.orderAll(orders);
+            assertThat(status.isRollbackOnly()).isFalse();
+            return result;
+        });
+        // then
+        assertThat(report.count(OrderOutcome.COMPLETED)).isEqualTo(10);
+        assertThat(report.getResults().get(5).getOutcome()).isEqualTo(OrderOutcome.FAILED);
+        assertThat(orderRepository.findById(orders.get(0).getId())).isPresent();
+    }
+
+    @Test
+    void orderAll_outerRollback() {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+        // when : 바깥 트랜잭션이 롤백되어도
+        txTemplate.executeWithoutResult(status -> {
+            orderService.orderAll(List.of(order));
+            status.setRollbackOnly();
+        });
+        // then : 청크는 이미 커밋되었다
+        assertThat(orderRepository.findById(order.getId())).isPresent();
+    }
+
+}
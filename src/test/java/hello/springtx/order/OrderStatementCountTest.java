@@ -0,0 +1,101 @@
+package hello.springtx.order;
+
+import hello.springtx.propagation.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 하이버네이트 통계로 OrderService 가 실행하는 SQL 수를 확인한다
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "springtx.order.chunk-size=100",
+        "springtx.order.flush-interval=50"
+})
+class OrderStatementCountTest {
+
+    @Autowired OrderService orderService;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void clearStatistics() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void enhanced() {
+        // 빌드 시점에 바이트코드 향상이 적용된 엔티티는 변경된 필드를 직접 기록한다
+        assertThat(SelfDirtinessTracker.class).isAssignableFrom(Order.class);
+        assertThat(SelfDirtinessTracker.class).isAssignableFrom(Member.class);
+    }
+
+    @Test
+    void complete_insertOnly() throws NotEnoughMoneyException {
+        //given
+        Order order = new Order();
+        order.setUsername("정상");
+
+        //when
+        orderService.order(order);
+
+        //then : 주문, outbox insert 만 실행하고 결제 상태 update 는 없다
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void bizException_insertOnly() {
+        //given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+
+        //when
+        assertThatThrownBy(() -> orderService.order(order)).isInstanceOf(NotEnoughMoneyException.class);
+
+        //then
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(2);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+    }
+
+    @Test
+    void orderAll_flushAndClear() {
+        //given : 청크 3개 (100, 100, 50)
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Order order = new Order();
+            order.setUsername(i % 10 == 0 ? "예외" : i % 10 == 1 ? "잔고부족" : "정상");
+            orders.add(order);
+        }
+
+        //when
+        OrderReport report = orderService.orderAll(orders);
+
+        //then : 저장된 225건 주문 + outbox 만 insert, update 없음
+        log.info("statements={}, flushes={}", statistics.getPrepareStatementCount(), statistics.getFlushCount());
+        assertThat(report.count(OrderOutcome.FAILED)).isEqualTo(25);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(450);
+        assertThat(statistics.getEntityUpdateCount()).isZero();
+        // 청크 중간에 50건마다 flush (2번) + 커밋 시점 flush (3번)
+        assertThat(statistics.getFlushCount()).isEqualTo(5);
+        // jdbc batch(50)로 묶여서 insert 문장 수가 엔티티 수보다 훨씬 적다
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(50);
+    }
+
+}
@@ -0,0 +1,95 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.log.async.enabled=true",
+        "springtx.log.async.batch-size=10",
+        "springtx.log.async.flush-interval-ms=50"
+})
+class AsyncLogWriterTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired AsyncLogWriter asyncLogWriter;
+
+    /**
+     * MemberService    @Transactional:ON
+     * MemberRepository @Transactional:ON
+     * AsyncLogWriter   별도 스레드, 배치 트랜잭션
+     */
+    @Test
+    void asyncLog_success() {
+        //given
+        String username = "asyncLog_success";
+
+        //when
+        memberService.joinV3(username);
+
+        //then : 회원은 바로 커밋되고, 로그는 writer가 저장한다
+        assertTrue(memberRepository.find(username).isPresent());
+        await(() -> logRepository.find(username).isPresent());
+    }
+
+    @Test
+    void asyncLog_batch() {
+        //given
+        long written = asyncLogWriter.getWrittenCount();
+
+        //when
+        for (int i = 0; i < 35; i++) {
+            memberService.joinV3("asyncLog_batch" + i);
+        }
+
+        //then : 로그는 batchSize 단위로 모아서 저장된다
+        await(() -> asyncLogWriter.getWrittenCount() - written >= 35);
+        assertThat(asyncLogWriter.getBatchSize()).isEqualTo(10);
+        assertThat(asyncLogWriter.getLastBatchSize()).isBetween(1L, 10L);
+        assertThat(asyncLogWriter.getMaxFlushNanos()).isPositive();
+        assertThat(asyncLogWriter.getQueueDepth()).isZero();
+        assertTrue(logRepository.find("asyncLog_batch34").isPresent());
+    }
+
+    /**
+     * 로그 저장에 실패해도 회원은 롤백되지 않고, 같은 배치에 있던 다른 로그도 저장된다
+     */
+    @Test
+    void asyncLog_fail() {
+        //given
+        String username = "asyncLog_fail";
+        long failed = asyncLogWriter.getFailedCount();
+
+        //when : 컬럼 길이를 넘는 로그는 DB 저장 시점에 실패한다
+        memberService.joinV3(username);
+        asyncLogWriter.enqueue(new Log("x".repeat(300)));
+
+        //then
+        await(() -> asyncLogWriter.getFailedCount() > failed);
+        assertTrue(memberRepository.find(username).isPresent());
+        await(() -> logRepository.find(username).isPresent());
+    }
+
+    private void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timeout").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
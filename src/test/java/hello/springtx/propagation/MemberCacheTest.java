@@ -0,0 +1,94 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@ActiveProfiles("cache")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MemberCacheTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * 두 번째 조회부터는 쿼리 캐시와 2차 캐시에서 가져오고 DB를 조회하지 않는다
+     */
+    @Test
+    void find_cacheHit() {
+        //given
+        memberService.joinV1("find_cacheHit");
+        memberRepository.find("find_cacheHit");
+        long queries = statistics.getPrepareStatementCount();
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            assertThat(memberRepository.find("find_cacheHit")).isPresent();
+        }
+
+        //then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queries);
+    }
+
+    /**
+     * 없는 회원이라는 조회 결과도 캐시되지만, 회원가입이 커밋되면 무효화된다
+     */
+    @Test
+    void find_invalidateOnCommit() {
+        //given
+        String username = "find_invalidateOnCommit";
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        //when
+        memberService.joinV1(username);
+
+        //then
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * 롤백된 트랜잭션 안에서 조회한 회원은 캐시에 남지 않는다
+     */
+    @Test
+    void find_invalidateOnRollback() {
+        //given
+        String username = "find_invalidateOnRollback";
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            assertThat(memberRepository.find(username)).isPresent();
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+}
@@ -0,0 +1,87 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class MemberRepositoryTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * 시퀀스는 allocationSize(50) 마다 한 번만 조회하고
+     * insert는 batch_size(50) 단위로 묶어서 실행된다
+     */
+    @Test
+    void bulkSave_batchInsert() {
+        //given
+        int count = 200;
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                memberRepository.save(new Member("bulkSave_batchInsert" + i));
+            }
+        });
+
+        //then : 200건의 insert가 한 자리 수의 statement로 처리된다
+        log.info("prepareStatementCount={}", statistics.getPrepareStatementCount());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(count);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(10);
+        assertThat(memberRepository.find("bulkSave_batchInsert199")).isPresent();
+    }
+
+    /**
+     * 회원가입 중복 확인은 username 인덱스를 사용한다 (full table scan 이 아니다)
+     */
+    @Test
+    void find_index() {
+        String memberPlan = jdbcTemplate.queryForObject(
+                "explain select * from member where username = 'find_index'", String.class);
+        String logPlan = jdbcTemplate.queryForObject(
+                "explain select * from log where message = 'find_index'", String.class);
+
+        log.info("memberPlan={}, logPlan={}", memberPlan, logPlan);
+        assertThat(memberPlan).containsIgnoringCase("uk_member_username");
+        assertThat(logPlan).containsIgnoringCase("idx_log_message");
+    }
+
+    @Test
+    void save_duplicateUsername() {
+        //given
+        memberRepository.save(new Member("save_duplicateUsername"));
+
+        //when
+        assertThatThrownBy(() -> memberRepository.save(new Member("save_duplicateUsername")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        //then
+        assertThat(memberRepository.find("save_duplicateUsername")).isPresent();
+    }
+
+}
@@ -195,4 +195,48 @@ class MemberServiceTest {
         assertTrue(logRepository.find(username).isEmpty()); // 로그는 단독적으로 롤백이 됨
     }
 
-}
\ No newline at end of file
+    /**
+     * MemberService    @Transactional:ON
+     * MemberRepository @Transactional:ON
+     * LogRepository    @Transactional:ON (NESTED)
+     */
+    @Test
+    void nested_success() {
+        //given
+        String username = "nested_success";
+
+        //when
+        memberService.joinV4(username);
+
+        //then : 모든 데이터가 정상 저장된다
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * MemberService    @Transactional:ON
+     * MemberRepository @Transactional:ON
+     * LogRepository    @Transactional:ON (NESTED) exception
+     */
+    @Test
+    void recoverException_nested() {
+
+        /**
+         * LogRepository는 NESTED 옵션을 사용한다. 기존 트랜잭션의 커넥션에 savepoint를 만들고 참여한다
+         * 예외가 발생하면 savepoint까지만 롤백하고 rollbackOnly를 표시하지 않는다
+         * 따라서 MemberService가 예외를 복구하면 외부 트랜잭션은 정상 커밋된다
+         * REQUIRES_NEW와 결과는 같지만 커넥션을 하나만 사용한다
+         */
+
+        //given
+        String username = "로그예외 recoverException_nested";
+
+        //when
+        memberService.joinV4(username);
+
+        //then : 로그만 savepoint 까지 롤백된다
+        assertTrue(memberRepository.find(username).isPresent());
+        assertTrue(logRepository.find(username).isEmpty());
+    }
+
+}
@@ -0,0 +1,56 @@
+package hello.springtx.reactive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@Slf4j
+@SpringBootTest(properties = "springtx.reactive.enabled=true")
+class ReactiveMemberServiceTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired ReactiveMemberService memberService;
+    @Autowired ReactiveMemberRepository memberRepository;
+    @Autowired ReactiveLogRepository logRepository;
+
+    /**
+     * ReactiveMemberService   join 트랜잭션
+     * ReactiveLogRepository   REQUIRES_NEW
+     */
+    @Test
+    void join_success() {
+        //given
+        String username = "reactive_join_success";
+
+        //when
+        memberService.join(username).block(TIMEOUT);
+
+        //then : 모든 데이터가 정상 저장된다
+        assertNotNull(memberRepository.find(username).block(TIMEOUT));
+        assertNotNull(logRepository.find(username).block(TIMEOUT));
+    }
+
+    /**
+     * 로그 저장은 별도 트랜잭션에서 롤백되고, 회원은 커밋된다
+     */
+    @Test
+    void join_logException() {
+        //given
+        String username = "로그예외_reactive_join";
+
+        //when
+        memberService.join(username).block(TIMEOUT);
+
+        //then : member 저장, log 롤백
+        assertNotNull(memberRepository.find(username).block(TIMEOUT));
+        assertNull(logRepository.find(username).block(TIMEOUT));
+    }
+
+}
@@ -0,0 +1,67 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * R2DBC 로 저장하고 JPA(OrderRepository)로 확인한다 (같은 in-memory H2)
+ */
+@Slf4j
+@SpringBootTest(properties = "springtx.reactive.enabled=true")
+class ReactiveOrderServiceTest {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired ReactiveOrderService reactiveOrderService;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    void complete() {
+        // given
+        Order order = new Order();
+        order.setUsername("정상");
+        // when
+        reactiveOrderService.order(order).block(TIMEOUT);
+        // then
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void runtimeException() {
+        // given
+        Order order = new Order();
+        order.setUsername("예외");
+        // when
+        assertThatThrownBy(() -> reactiveOrderService.order(order).block(TIMEOUT))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("시스템 예외");
+        // then : 롤백
+        assertThat(order.getId()).isNotNull();
+        assertThat(orderRepository.findById(order.getId())).isEmpty();
+    }
+
+    @Test
+    void bizException() {
+        // given
+        Order order = new Order();
+        order.setUsername("잔고부족");
+        // when : block() 은 체크 예외를 감싸서 던진다
+        assertThatThrownBy(() -> reactiveOrderService.order(order).block(TIMEOUT))
+                .hasCauseInstanceOf(NotEnoughMoneyException.class);
+        // then : 커밋
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+    }
+
+}
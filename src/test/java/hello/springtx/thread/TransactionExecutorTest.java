@@ -0,0 +1,131 @@
+package hello.springtx.thread;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "logging.level.hello.springtx=WARN",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=INFO",
+        "logging.level.org.springframework.transaction.interceptor=INFO",
+        "logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=INFO"
+})
+class TransactionExecutorTest {
+
+    static final int ORDERS = 10_000;
+
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired MemberService memberService;
+    @Autowired ObjectProvider<TransactionExecutor> transactionExecutor;
+
+    @Test
+    void disabledByDefault() {
+        assumeFalse(Boolean.getBoolean("springtx.thread.enabled"), "-PjavaToolchain=21 에서는 켜져 있다");
+        // springtx.thread.enabled=false 이면 스레드 풀을 만들지 않는다
+        assertThat(transactionExecutor.getIfAvailable()).isNull();
+    }
+
+    @Test
+    void platformThreads() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor("platform", 200, 10);
+        try {
+            orders(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Java 21 이상에서만 실행된다 (./gradlew test -PjavaToolchain=21)
+     */
+    @Test
+    void virtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "가상 스레드는 Java 21 이상에서 실행");
+        TransactionExecutor executor = new TransactionExecutor("virtual", 0, 10);
+        try {
+            orders(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * MemberService.joinV1 은 로그를 REQUIRES_NEW 로 저장하므로 커넥션을 2개 사용한다
+     * 커넥션 수만큼 허가를 한 번에 받으므로 커넥션을 하나씩 잡고 서로 기다리지 않는다
+     */
+    @Test
+    void requiresNew_connections() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor(
+                VirtualThreads.isSupported() ? "virtual" : "platform", 200, 10);
+        try {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                String username = "requiresNew_connections" + i;
+                futures.add(executor.submit(2, () -> {
+                    assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+                    memberService.joinV1(username);
+                    return true;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+
+            assertThat(executor.getCompletedCount()).isEqualTo(500);
+            assertThat(executor.getLeakedCount()).isZero();
+            assertThat(executor.getAvailablePermits()).isEqualTo(10);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void orders(TransactionExecutor executor) throws Exception {
+        long before = orderRepository.count();
+        long[] latencies = new long[ORDERS];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(ORDERS);
+        long start = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                Order order = new Order();
+                order.setUsername("정상");
+                orderService.order(order);
+                latencies[index] = System.nanoTime() - submitted;
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(120, TimeUnit.SECONDS);
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+
+        Arrays.sort(latencies);
+        log.warn("mode={}, orders={}, elapsed={}ms, throughput={}/s, p50={}ms, p99={}ms, max={}ms",
+                executor.getMode(), ORDERS, elapsedMillis, ORDERS * 1000L / elapsedMillis,
+                TimeUnit.NANOSECONDS.toMillis(latencies[ORDERS / 2]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[ORDERS * 99 / 100]),
+                TimeUnit.NANOSECONDS.toMillis(latencies[ORDERS - 1]));
+
+        assertThat(orderRepository.count() - before).isEqualTo(ORDERS);
+        assertThat(executor.getLeakedCount()).isZero();
+        assertThat(executor.getAvailablePermits()).isEqualTo(executor.getMaxConcurrentConnections());
+    }
+
+}
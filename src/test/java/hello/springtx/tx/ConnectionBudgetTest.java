@@ -0,0 +1,230 @@
+package hello.springtx.tx;
+
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import hello.springtx.thread.TransactionExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=1500",
+        "springtx.tx.connection-budget.enabled=true",
+        "springtx.tx.connection-budget.deadlock-check-interval-ms=100",
+        "springtx.thread.enabled=true"
+})
+class ConnectionBudgetTest {
+
+    static final int POOL_SIZE = 4;
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired ConnectionBudgetManager budgetManager;
+    @Autowired PoolDeadlockDetector detector;
+    @Autowired EntityManagerFactory emf;
+    @Autowired TransactionExecutor transactionExecutor;
+
+    /**
+     * 처음 실행되는 REQUIRES_NEW 호출은 필요한 커넥션 수를 모른다
+     * 예약한 커넥션(1개)을 가진 채로 풀에서 기다리지 않고 바로 실패한다
+     */
+    @Test
+    void requiresNew_failFast() throws Exception {
+        //given : 풀 크기만큼의 외부 트랜잭션이 커넥션을 하나씩 가진 상태
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        outer.setName("requiresNew_failFast");
+        TransactionTemplate inner = new TransactionTemplate(txManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        CyclicBarrier barrier = new CyclicBarrier(POOL_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+
+        //when
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            futures.add(executor.submit(() -> outer.executeWithoutResult(status -> {
+                await(barrier);
+                inner.executeWithoutResult(innerStatus -> log.info("inner"));
+            })));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+
+        //then : connectionTimeout(1500ms)을 기다리지 않고 실패한다
+        //       먼저 실패한 트랜잭션이 커넥션을 반납하면 나머지는 진행할 수 있다. 다음 호출부터는 커넥션 2개를 예약한다
+        log.info("elapsed={}ms, failures={}", elapsedMillis, failures.size());
+        assertThat(failures).isNotEmpty().allMatch(e -> e instanceof ConnectionBudgetException);
+        assertThat(elapsedMillis).isLessThan(1500);
+        assertThat(budgetManager.getBudgets()).containsEntry("requiresNew_failFast", 2);
+        assertThat(budgetManager.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    /**
+     * 한 번 실행해서 joinV1 에 커넥션이 2개 필요하다는 것을 알면, 이후에는 시작할 때 2개를 한 번에 예약한다
+     * 풀 크기의 2배의 스레드가 동시에 회원가입해도 데드락 없이 모두 성공한다
+     */
+    @Test
+    void joinV1_concurrent() throws Exception {
+        //given
+        memberService.joinV1("joinV1_concurrent");
+        assertThat(budgetManager.getBudgets())
+                .containsEntry("hello.springtx.propagation.MemberService.joinV1", 2);
+        int threads = POOL_SIZE * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    memberService.joinV1("joinV1_concurrent" + thread + "-" + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(memberRepository.find("joinV1_concurrent7-24")).isPresent();
+        assertThat(detector.getDeadlocks()).isEmpty();
+        assertThat(budgetManager.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    /**
+     * 이름이 없는 트랜잭션은 커넥션 수를 기록하지 않는다
+     * REQUIRES_NEW 를 사용한 트랜잭션이 있어도 이후의 이름 없는 트랜잭션은 1개만 예약한다
+     */
+    @Test
+    void unnamed_notLearned() {
+        //given
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        TransactionTemplate inner = new TransactionTemplate(txManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        outer.executeWithoutResult(status -> inner.executeWithoutResult(innerStatus -> log.info("inner")));
+
+        //when
+        Integer available = outer.execute(status -> budgetManager.getAvailablePermits());
+
+        //then
+        assertThat(available).isEqualTo(POOL_SIZE - 1);
+        assertThat(budgetManager.getBudgets()).doesNotContainKey("(unnamed)");
+        assertThat(budgetManager.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    /**
+     * TransactionExecutor 는 ConnectionBudgetManager 의 허가를 사용한다
+     * 작업을 시작할 때 예약한 커넥션을 작업 안의 트랜잭션이 그대로 사용하므로 허가를 두 번 받지 않는다
+     */
+    @Test
+    void transactionExecutor_sharedPermits() throws Exception {
+        assertThat(transactionExecutor.getMaxConcurrentConnections()).isEqualTo(POOL_SIZE);
+        TransactionTemplate outer = new TransactionTemplate(txManager);
+        outer.setName("transactionExecutor_sharedPermits");
+        TransactionTemplate inner = new TransactionTemplate(txManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        //when : 커넥션 2개를 예약한 작업에서 외부 트랜잭션 + REQUIRES_NEW
+        Integer available = transactionExecutor.submit(2, () -> outer.execute(status ->
+                inner.execute(innerStatus -> budgetManager.getAvailablePermits()))).get(10, TimeUnit.SECONDS);
+
+        //then : 예약한 2개 외에 허가를 더 받지 않는다
+        assertThat(available).isEqualTo(POOL_SIZE - 2);
+        assertThat(budgetManager.getAvailablePermits()).isEqualTo(POOL_SIZE);
+        assertThat(budgetManager.getThreadBudgets()).isEmpty();
+    }
+
+    /**
+     * 처음 실행되는 REQUIRES_NEW 도 TransactionExecutor 로 커넥션 수를 알려주면 풀이 가득 찬 상태에서 실패하지 않는다 (requiresNew_failFast 와 비교)
+     */
+    @Test
+    void transactionExecutor_requiresNew() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor("platform", POOL_SIZE * 2, 100, budgetManager);
+        try {
+            TransactionTemplate outer = new TransactionTemplate(txManager);
+            outer.setName("transactionExecutor_requiresNew");
+            TransactionTemplate inner = new TransactionTemplate(txManager);
+            inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            AtomicInteger completed = new AtomicInteger();
+            long rejected = budgetManager.getRejectedCount();
+
+            //when
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < POOL_SIZE * 25; i++) {
+                futures.add(executor.submit(2, () -> {
+                    outer.executeWithoutResult(status ->
+                            inner.executeWithoutResult(innerStatus -> completed.incrementAndGet()));
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+
+            //then
+            assertThat(completed).hasValue(POOL_SIZE * 25);
+            assertThat(budgetManager.getRejectedCount()).isEqualTo(rejected);
+            assertThat(executor.getLeakedCount()).isZero();
+            assertThat(budgetManager.getAvailablePermits()).isEqualTo(POOL_SIZE);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void transactionExecutor_connectionsOverBudget() throws Exception {
+        TransactionExecutor executor = new TransactionExecutor("platform", 1, 100, budgetManager);
+        try {
+            assertThatThrownBy(() -> executor.submit(POOL_SIZE + 1, () -> null))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void resourceFactory() {
+        assertThat(txManager).isInstanceOf(ResourceTransactionManager.class);
+        assertThat(((ResourceTransactionManager) txManager).getResourceFactory()).isSameAs(emf);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
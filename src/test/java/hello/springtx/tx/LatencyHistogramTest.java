@@ -0,0 +1,31 @@
+package hello.springtx.tx;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getMax()).isEqualTo(1_000_000);
+        assertThat((double) snapshot.getP50()).isCloseTo(500_000, within(500_000 * 0.125));
+        assertThat((double) snapshot.getP99()).isCloseTo(990_000, within(990_000 * 0.125));
+    }
+
+    @Test
+    void bucket() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 1023, 1024, Long.MAX_VALUE}) {
+            assertThat(LatencyHistogram.upperBound(LatencyHistogram.index(value))).isGreaterThanOrEqualTo(value);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package hello.springtx.tx;
+
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커넥션 풀 크기(4)만큼의 회원가입(joinV1)이 동시에 외부 트랜잭션 커넥션을 잡은 뒤 LogRepository(REQUIRES_NEW)를 호출하면
+ * 모든 스레드가 커넥션을 하나씩 가진 채로 다른 커넥션을 기다린다 (connectionTimeout 까지 모두 멈춘다)
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=1500",
+        "springtx.tx.connection-budget.enabled=true",
+        "springtx.tx.connection-budget.enforce=false",
+        "springtx.tx.connection-budget.deadlock-check-interval-ms=100"
+})
+class PoolDeadlockDetectorTest {
+
+    static final int POOL_SIZE = 4;
+
+    @Autowired MemberService memberService;
+    @Autowired PoolDeadlockDetector detector;
+
+    @TestConfiguration
+    static class BarrierConfig {
+        @Bean
+        TransactionObserver joinBarrier() {
+            return new JoinBarrier();
+        }
+    }
+
+    @Test
+    void requiresNew_poolDeadlock() throws Exception {
+        //given
+        JoinBarrier.barrier = new CyclicBarrier(POOL_SIZE);
+        ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE);
+
+        //when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            String username = "requiresNew_poolDeadlock" + i;
+            futures.add(executor.submit(() -> memberService.joinV1(username)));
+        }
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        executor.shutdown();
+        JoinBarrier.barrier = null;
+
+        //then : 탐지기가 데드락을 발견한다
+        //       connectionTimeout 이 지나서 먼저 실패한 스레드가 커넥션을 반납해야 나머지가 진행된다
+        assertThat(detector.getDeadlocks()).isNotEmpty();
+        PoolDeadlock deadlock = detector.getDeadlocks().get(0);
+        assertThat(deadlock.getHeldConnections()).isEqualTo(POOL_SIZE);
+        assertThat(deadlock.getTransactionNames()).allMatch(name -> name.endsWith("MemberService.joinV1"));
+        assertThat(failures).isNotEmpty().allMatch(e -> e instanceof CannotCreateTransactionException);
+    }
+
+    /**
+     * joinV1 트랜잭션이 커넥션을 얻은 직후, 풀 크기만큼의 스레드가 모일 때까지 기다린다
+     */
+    static class JoinBarrier implements TransactionObserver {
+
+        static volatile CyclicBarrier barrier;
+
+        @Override
+        public void afterBegin(TransactionDefinition definition, TransactionStatus status) {
+            CyclicBarrier current = barrier;
+            if (current == null || !status.isNewTransaction()
+                    || definition.getName() == null || !definition.getName().endsWith("MemberService.joinV1")) {
+                return;
+            }
+            try {
+                current.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (BrokenBarrierException | TimeoutException e) {
+                log.info("barrier 대기 종료");
+            }
+        }
+
+    }
+
+}
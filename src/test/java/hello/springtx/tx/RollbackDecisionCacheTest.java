@@ -0,0 +1,50 @@
+package hello.springtx.tx;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.NoRollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RollbackRuleAttribute;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollbackDecisionCacheTest {
+
+    /**
+     * @Transactional(rollbackFor = MyException.class, noRollbackFor = MyBizException.class)
+     */
+    @Test
+    void sameAsRules() {
+        RuleBasedTransactionAttribute attribute = new RuleBasedTransactionAttribute();
+        attribute.setRollbackRules(Arrays.asList(
+                new RollbackRuleAttribute(MyException.class),
+                new NoRollbackRuleAttribute(MyBizException.class)));
+        RollbackDecisionCache cache = new RollbackDecisionCache(attribute::rollbackOn);
+
+        for (int i = 0; i < 2; i++) { // 두 번째는 캐시에서 찾는다
+            assertThat(cache.rollbackOn(new MyException())).isTrue();
+            assertThat(cache.rollbackOn(new MyBizException())).isFalse();
+            assertThat(cache.rollbackOn(new Exception())).isFalse();
+            assertThat(cache.rollbackOn(new IllegalStateException())).isTrue();
+        }
+    }
+
+    @Test
+    void cacheable() {
+        RuleBasedTransactionAttribute withRules = new RuleBasedTransactionAttribute();
+        withRules.setRollbackRules(Arrays.asList(new RollbackRuleAttribute(MyException.class)));
+
+        assertThat(RollbackDecisionCache.isCacheable(withRules)).isTrue();
+        assertThat(RollbackDecisionCache.isCacheable(new RuleBasedTransactionAttribute())).isFalse();
+        assertThat(RollbackDecisionCache.isCacheable(new DefaultTransactionAttribute())).isFalse();
+    }
+
+    static class MyException extends Exception {
+    }
+
+    static class MyBizException extends MyException {
+    }
+
+}
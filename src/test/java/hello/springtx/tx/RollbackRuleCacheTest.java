@@ -0,0 +1,104 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * 롤백 규칙 캐시는 트랜잭션 통계(TxMetrics)를 꺼도 동작한다
+ */
+@SpringBootTest(properties = "springtx.tx.metrics.enabled=false")
+class RollbackRuleCacheTest {
+
+    @Autowired TransactionAttributeSource transactionAttributeSource;
+    @Autowired RuleService ruleService;
+    @Autowired OrderRepository orderRepository;
+
+    /**
+     * 위빙 모드는 TransactionWeavingConfig 가 AnnotationTransactionAspect 의 속성 소스를 직접 감싼다
+     */
+    @BeforeAll
+    static void proxyMode() {
+        assumeFalse("aspectj".equals(System.getProperty("springtx.tx.mode")), "위빙 모드에서는 프록시를 만들지 않는다");
+    }
+
+    @Test
+    void cachedAttribute() throws NoSuchMethodException {
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(
+                RuleService.class.getMethod("save", Order.class, Exception.class), RuleService.class);
+
+        assertThat(transactionAttributeSource).isInstanceOf(RollbackRuleCachingAttributeSource.class);
+        assertThat(attribute).isInstanceOf(RuleBasedTransactionAttribute.class);
+        assertThat(attribute.getClass()).isNotEqualTo(RuleBasedTransactionAttribute.class);
+    }
+
+    /**
+     * 같은 예외 클래스를 두 번째 던질 때는 캐시된 판단을 쓴다, 결과는 규칙과 같다
+     */
+    @Test
+    void rules() {
+        for (int i = 0; i < 2; i++) {
+            Order rollback = order();
+            assertThatThrownBy(() -> ruleService.save(rollback, new MyException())).isInstanceOf(MyException.class);
+            assertThat(orderRepository.findById(rollback.getId())).isEmpty();
+
+            Order commit = order();
+            assertThatThrownBy(() -> ruleService.save(commit, new MyBizException())).isInstanceOf(MyBizException.class);
+            assertThat(orderRepository.findById(commit.getId())).isPresent();
+        }
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setUsername("rollbackRule");
+        return order;
+    }
+
+    @TestConfiguration
+    static class RollbackRuleCacheTestConfig {
+
+        @Bean
+        RuleService ruleService(EntityManager em) {
+            return new RuleService(em);
+        }
+
+    }
+
+    static class RuleService {
+
+        private final EntityManager em;
+
+        RuleService(EntityManager em) {
+            this.em = em;
+        }
+
+        @Transactional(rollbackFor = MyException.class, noRollbackFor = MyBizException.class)
+        public void save(Order order, Exception ex) throws Exception {
+            em.persist(order);
+            throw ex;
+        }
+
+    }
+
+    static class MyException extends Exception {
+    }
+
+    static class MyBizException extends MyException {
+    }
+
+}
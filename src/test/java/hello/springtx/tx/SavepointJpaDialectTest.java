@@ -0,0 +1,149 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class SavepointJpaDialectTest {
+
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired OrderRepository orderRepository;
+    @Autowired EntityManager em;
+    @Autowired LogRepository logRepository;
+
+    TransactionTemplate nested;
+
+    @BeforeEach
+    void setUp() {
+        nested = new TransactionTemplate(txTemplate.getTransactionManager());
+        nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+    }
+
+    /**
+     * NESTED 가 롤백된 뒤에도 외부 트랜잭션이 조회한 엔티티는 영속 상태라서 이후 변경이 커밋된다
+     * NESTED 안에서 저장한 엔티티, 바꾼 값은 롤백된다
+     */
+    @Test
+    void outerChangeAfterNestedRollback() {
+        //given
+        Long orderId = saveOrder();
+        Order added = new Order();
+        added.setUsername("nested");
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            Order order = em.find(Order.class, orderId);
+            rollbackNested(() -> {
+                em.persist(added);
+                order.setPayStatus("nested");
+            });
+
+            assertThat(em.contains(order)).isTrue();
+            assertThat(em.contains(added)).isFalse();
+            assertThat(order.getPayStatus()).isEqualTo("대기"); // NESTED 에서 바꾼 값은 DB 에서 다시 읽었다
+            order.setPayStatus("완료");
+        });
+
+        //then
+        assertThat(orderRepository.findById(orderId)).get().extracting(Order::getPayStatus).isEqualTo("완료");
+        assertThat(orderRepository.findById(added.getId())).isEmpty();
+    }
+
+    /**
+     * NESTED 안에서 삭제한 엔티티는 롤백 후 다시 영속 상태가 된다
+     */
+    @Test
+    void removeInNestedRollback() {
+        //given
+        Long orderId = saveOrder();
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            Order order = em.find(Order.class, orderId);
+            rollbackNested(() -> em.remove(order));
+
+            assertThat(em.contains(order)).isTrue();
+            order.setPayStatus("완료");
+        });
+
+        //then
+        assertThat(orderRepository.findById(orderId)).get().extracting(Order::getPayStatus).isEqualTo("완료");
+    }
+
+    /**
+     * 읽기 전용으로 조회한 엔티티는 로딩 상태가 없다, NESTED 롤백 후에도 읽기 전용 영속 상태로 남는다
+     */
+    @Test
+    void readOnlyEntityAfterNestedRollback() {
+        //given
+        Long orderId = saveOrder();
+
+        //when
+        txTemplate.executeWithoutResult(status -> {
+            Order order = em.find(Order.class, orderId);
+            em.unwrap(Session.class).setReadOnly(order, true);
+            Order added = new Order();
+            added.setUsername("nested");
+            rollbackNested(() -> em.persist(added));
+
+            //then : 준영속으로 만들었다가 다시 붙이지 않는다
+            assertThat(em.contains(order)).isTrue();
+            assertThat(em.unwrap(Session.class).isReadOnly(order)).isTrue();
+        });
+    }
+
+    /**
+     * NESTED 안에서 flush 하므로 DB 오류는 saveNested 호출에서 발생한다
+     * 하이버네이트 예외는 트랜잭션을 rollback-only 로 표시하므로 예외를 잡아도 외부 트랜잭션은 롤백된다
+     */
+    @Test
+    void nestedDatabaseFailure() {
+        //given
+        Order order = new Order();
+        order.setUsername("nestedDatabaseFailure");
+
+        //when
+        assertThatThrownBy(() -> txTemplate.executeWithoutResult(status -> {
+            em.persist(order);
+            assertThatThrownBy(() -> logRepository.saveNested(new Log("x".repeat(300))))
+                    .isInstanceOf(DataAccessException.class);
+        })).isInstanceOf(UnexpectedRollbackException.class);
+
+        //then
+        assertThat(orderRepository.findById(order.getId())).isEmpty();
+    }
+
+    private void rollbackNested(Runnable action) {
+        assertThatThrownBy(() -> nested.executeWithoutResult(nestedStatus -> {
+            action.run();
+            throw new IllegalStateException("NESTED 예외");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    private Long saveOrder() {
+        Order order = new Order();
+        order.setUsername("savepoint");
+        order.setPayStatus("대기");
+        return txTemplate.execute(status -> {
+            em.persist(order);
+            return order.getId();
+        });
+    }
+
+}
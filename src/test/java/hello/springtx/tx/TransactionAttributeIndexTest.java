@@ -0,0 +1,217 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+@Slf4j
+@SpringBootTest
+class TransactionAttributeIndexTest {
+
+    @Autowired IndexedLevelService levelService;
+    @Autowired TransactionAttributeSource transactionAttributeSource;
+
+    /**
+     * 인덱스는 프록시 모드의 트랜잭션 속성 소스에 적용된다
+     */
+    @BeforeAll
+    static void proxyMode() {
+        assumeFalse("aspectj".equals(System.getProperty("springtx.tx.mode")), "위빙 모드에서는 프록시를 만들지 않는다");
+    }
+
+    /**
+     * 빌드에서는 generateTransactionAttributeIndex 태스크가 만든다, 테스트에서는 테스트 클래스까지 포함해서 직접 만든다
+     */
+    @DynamicPropertySource
+    static void attributeIndex(DynamicPropertyRegistry registry) throws IOException {
+        Path file = Files.createTempFile("transaction-attributes", ".properties");
+        file.toFile().deleteOnExit();
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            generator().generate("hello.springtx").write(writer);
+        }
+        registry.add("springtx.tx.attribute-index.location", () -> file.toUri().toString());
+    }
+
+    @TestConfiguration
+    static class IndexConfig {
+        @Bean
+        IndexedLevelService indexedLevelService() {
+            return new IndexedLevelService();
+        }
+    }
+
+    /**
+     * 인덱스의 모든 속성은 런타임 어노테이션 조회 결과와 같다
+     */
+    @Test
+    void sameAsAnnotation() throws IOException {
+        //given
+        AnnotationTransactionAttributeSource annotationSource = new AnnotationTransactionAttributeSource();
+        TransactionAttributeIndex index = roundTrip(generator().generate("hello.springtx"));
+
+        //then
+        int methods = 0;
+        for (String className : index.getClassNames()) {
+            Class<?> type = load(className);
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(type)) {
+                TransactionAttribute expected = annotationSource.getTransactionAttribute(method, type);
+                TransactionAttribute actual = index.getAttributes(className).get(TransactionAttributeIndex.signature(method));
+                if (expected == null) {
+                    assertThat(actual).as(className + "#" + method.getName()).isNull();
+                    continue;
+                }
+                assertThat(TransactionAttributeIndex.describe(actual)).as(className + "#" + method.getName())
+                        .isEqualTo(TransactionAttributeIndex.describe(expected));
+                assertThat(((DefaultTransactionAttribute) actual).getDescriptor())
+                        .isEqualTo(((DefaultTransactionAttribute) expected).getDescriptor());
+                methods++;
+            }
+        }
+        log.info("classes={}, transactional methods={}", index.size(), methods);
+        assertThat(index.getClassNames()).contains(
+                "hello.springtx.order.OrderService",
+                "hello.springtx.propagation.MemberService",
+                IndexedLevelService.class.getName());
+        assertThat(methods).isPositive();
+    }
+
+    /**
+     * 클래스 레벨 readOnly, 메서드 레벨 재정의, 롤백 규칙, 타임아웃, qualifier
+     */
+    @Test
+    void levelOverride() throws Exception {
+        //given
+        Map<String, TransactionAttribute> attributes = roundTrip(generator().generate("hello.springtx"))
+                .getAttributes(IndexedLevelService.class.getName());
+
+        //then
+        TransactionAttribute read = attributes.get("read()");
+        assertThat(read.isReadOnly()).isTrue();
+
+        TransactionAttribute write = attributes.get("write(java.lang.String)");
+        assertThat(write.isReadOnly()).isFalse();
+        assertThat(write.getTimeout()).isEqualTo(3);
+        assertThat(write.getQualifier()).isEqualTo("transactionManager");
+        assertThat(write.rollbackOn(new NotEnoughMoneyException("잔고 부족"))).isTrue();
+        assertThat(write.rollbackOn(new IllegalStateException())).isFalse();
+        assertThat(write.rollbackOn(new RuntimeException())).isTrue();
+
+        assertThat(attributes).doesNotContainKey("notPublic()");
+    }
+
+    /**
+     * 인덱스에 있는 클래스는 원래 속성 소스(어노테이션 조회)를 호출하지 않는다
+     */
+    @Test
+    void noAnnotationLookup() {
+        //given
+        TransactionAttributeIndex index = generator().generate("hello.springtx");
+        TransactionAttributeSource failing = new TransactionAttributeSource() {
+            @Override
+            public boolean isCandidateClass(Class<?> targetClass) {
+                throw new AssertionError("isCandidateClass " + targetClass);
+            }
+
+            @Override
+            public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+                throw new AssertionError("getTransactionAttribute " + method);
+            }
+        };
+        IndexedTransactionAttributeSource source = new IndexedTransactionAttributeSource(failing, index);
+
+        //then
+        assertThat(source.isCandidateClass(IndexedLevelService.class)).isTrue();
+        assertThat(source.isCandidateClass(TransactionAttributeIndex.class)).isFalse();
+        Method read = ReflectionUtils.findMethod(IndexedLevelService.class, "read");
+        assertThat(source.getTransactionAttribute(read, IndexedLevelService.class).isReadOnly()).isTrue();
+        Method toString = ReflectionUtils.findMethod(IndexedLevelService.class, "toString");
+        assertThat(source.getTransactionAttribute(toString, IndexedLevelService.class)).isNull();
+
+        // 인덱스에 없는 클래스는 원래 속성 소스에 맡긴다
+        assertThatThrownBy(() -> source.isCandidateClass(String.class)).isInstanceOf(AssertionError.class);
+    }
+
+    /**
+     * 트랜잭션 AOP 가 인덱스를 사용한다
+     */
+    @Test
+    void proxyUsesIndex() {
+        // InstrumentedTransactionAttributeSource -> RollbackRuleCachingAttributeSource -> IndexedTransactionAttributeSource
+        Object source = transactionAttributeSource;
+        while (!(source instanceof IndexedTransactionAttributeSource) && ReflectionUtils.findField(source.getClass(), "delegate") != null) {
+            source = ReflectionTestUtils.getField(source, "delegate");
+        }
+        assertThat(source).isInstanceOf(IndexedTransactionAttributeSource.class);
+
+        assertThat(levelService.read()).isTrue();
+        assertThat(levelService.write("write")).isFalse();
+    }
+
+    private static TransactionAttributeIndexGenerator generator() {
+        return new TransactionAttributeIndexGenerator(TransactionAttributeIndexTest.class.getClassLoader());
+    }
+
+    private static TransactionAttributeIndex roundTrip(TransactionAttributeIndex index) throws IOException {
+        StringWriter writer = new StringWriter();
+        index.write(writer);
+        return TransactionAttributeIndex.read(new StringReader(writer.toString()));
+    }
+
+    private static Class<?> load(String className) {
+        try {
+            return Class.forName(className, false, TransactionAttributeIndexTest.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    static class IndexedLevelService {
+
+        @Transactional(timeout = 3, transactionManager = "transactionManager",
+                rollbackFor = NotEnoughMoneyException.class, noRollbackFor = IllegalStateException.class)
+        public boolean write(String message) {
+            log.info("call write {}", message);
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        public boolean read() {
+            log.info("call read");
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        @Transactional
+        void notPublic() {
+        }
+
+    }
+
+}
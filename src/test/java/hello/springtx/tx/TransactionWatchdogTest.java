@@ -0,0 +1,107 @@
+package hello.springtx.tx;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "springtx.tx.watchdog.enabled=true",
+        "springtx.tx.watchdog.threshold-ms=200",
+        "springtx.tx.watchdog.check-interval-ms=20"
+})
+class TransactionWatchdogTest {
+
+    @Autowired TransactionWatchdog watchdog;
+    @Autowired SleepService sleepService;
+    @Autowired MemberRepository memberRepository;
+
+    @TestConfiguration
+    static class WatchdogTestConfig {
+        @Bean
+        SleepService sleepService(MemberRepository memberRepository) {
+            return new SleepService(memberRepository);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        watchdog.setRollbackSlowTransactions(false);
+    }
+
+    @Test
+    void slowTransaction_report() {
+        //when
+        sleepService.sleep("slowTransaction_report", 600);
+
+        //then : 이름, 스레드, 스택을 남기고 트랜잭션은 정상 커밋된다
+        SlowTransaction slow = watchdog.getSlowTransactions().get(0);
+        assertThat(slow.getName()).isEqualTo(SleepService.class.getName() + ".sleep");
+        assertThat(slow.getThreadName()).isEqualTo(Thread.currentThread().getName());
+        assertThat(slow.getElapsedMillis()).isGreaterThanOrEqualTo(200);
+        assertThat(Arrays.stream(slow.getStackTrace()))
+                .anyMatch(element -> element.getClassName().equals(SleepService.class.getName()));
+        assertThat(memberRepository.find("slowTransaction_report")).isPresent();
+        assertThat(watchdog.getActiveCount()).isZero();
+    }
+
+    @Test
+    void slowTransaction_rollback() {
+        //given
+        watchdog.setRollbackSlowTransactions(true);
+
+        //when
+        assertThatThrownBy(() -> sleepService.sleep("slowTransaction_rollback", 600))
+                .isInstanceOf(TransactionTimedOutException.class);
+        watchdog.setRollbackSlowTransactions(false);
+
+        //then : 회원 저장은 롤백된다
+        assertThat(memberRepository.find("slowTransaction_rollback")).isEmpty();
+    }
+
+    @Test
+    void fastTransaction() {
+        //given
+        int reports = watchdog.getSlowTransactions().size();
+
+        //when
+        sleepService.sleep("fastTransaction", 0);
+
+        //then
+        assertThat(watchdog.getSlowTransactions()).hasSize(reports);
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    static class SleepService {
+
+        private final MemberRepository memberRepository;
+
+        @Transactional
+        public void sleep(String username, long millis) {
+            memberRepository.save(new Member(username));
+            log.info("sleep {}ms", millis);
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRED;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+
+@Slf4j
+@SpringBootTest
+class TxMetricsTest {
+
+    @Autowired TxMetrics txMetrics;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+
+    @BeforeEach
+    void setUp() {
+        txMetrics.reset();
+    }
+
+    @Test
+    void order() throws NotEnoughMoneyException {
+        //when : 정상, 시스템 예외(롤백), 비즈니스 예외(커밋)
+        order("정상");
+        assertThatThrownBy(() -> order("예외")).isInstanceOf(RuntimeException.class);
+        assertThatThrownBy(() -> order("잔고부족")).isInstanceOf(NotEnoughMoneyException.class);
+
+        //then
+        TxStatsSnapshot stats = txMetrics.snapshot("hello.springtx.order.OrderService.order", PROPAGATION_REQUIRED);
+        log.info("stats={}", stats);
+        assertThat(stats.getBegin().getCount()).isEqualTo(3);
+        assertThat(stats.getCommitCount()).isEqualTo(2);
+        assertThat(stats.getRollbackCount()).isEqualTo(1);
+        assertThat(stats.getHold().getCount()).isEqualTo(3);
+        assertThat(stats.getHold().getMax()).isPositive();
+        assertThat(stats.getRollbackCauses()).containsEntry(RuntimeException.class.getName(), 1L);
+    }
+
+    /**
+     * LogRepository.save() 는 REQUIRES_NEW 이므로 MemberService 트랜잭션을 보류하고 재개한다
+     */
+    @Test
+    void requiresNew_suspend() {
+        //when
+        memberService.joinV2("로그예외 requiresNew_suspend");
+
+        //then
+        TxStatsSnapshot logStats = txMetrics.snapshot(
+                "hello.springtx.propagation.LogRepository.save", PROPAGATION_REQUIRES_NEW);
+        assertThat(logStats.getSuspendCount()).isEqualTo(1);
+        assertThat(logStats.getResumeCount()).isEqualTo(1);
+        assertThat(logStats.getRollbackCauses()).containsEntry(RuntimeException.class.getName(), 1L);
+
+        TxStatsSnapshot joinStats = txMetrics.snapshot(
+                "hello.springtx.propagation.MemberService.joinV2", PROPAGATION_REQUIRED);
+        assertThat(joinStats.getCommitCount()).isEqualTo(1);
+        assertThat(txMetrics.snapshot()).containsKey(
+                "hello.springtx.propagation.MemberRepository.save PROPAGATION_REQUIRED");
+    }
+
+    /**
+     * 커밋 시점의 flush 에서 유니크 제약 조건 위반이 나면 트랜잭션 매니저가 롤백하고 예외를 던진다
+     * 커밋이 아니라 롤백으로 기록되고 원인이 남는다
+     */
+    @Test
+    void commitFailure() {
+        //given
+        String username = "commitFailure";
+        TransactionTemplate template = new TransactionTemplate(txTemplate.getTransactionManager());
+        template.setName("TxMetricsTest.commitFailure");
+        template.executeWithoutResult(status -> em.persist(new Member(username)));
+
+        //when : insert 는 커밋 시점에 flush 된다
+        assertThatThrownBy(() -> template.executeWithoutResult(status -> em.persist(new Member(username))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        //then
+        TxStatsSnapshot stats = txMetrics.snapshot("TxMetricsTest.commitFailure", PROPAGATION_REQUIRED);
+        assertThat(stats.getCommitCount()).isEqualTo(1);
+        assertThat(stats.getRollbackCount()).isEqualTo(1);
+        assertThat(stats.getRollbackCauses()).containsEntry(DataIntegrityViolationException.class.getName(), 1L);
+    }
+
+    /**
+     * 감싼 트랜잭션 매니저도 JpaTransactionManager 의 EntityManagerFactory 를 알려준다
+     */
+    @Test
+    void resourceFactory() {
+        PlatformTransactionManager transactionManager = txTemplate.getTransactionManager();
+
+        assertThat(transactionManager).isInstanceOf(InstrumentedTransactionManager.class);
+        assertThat(((ResourceTransactionManager) transactionManager).getResourceFactory()).isSameAs(emf);
+    }
+
+    private void order(String username) throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername(username);
+        orderService.order(order);
+    }
+
+}
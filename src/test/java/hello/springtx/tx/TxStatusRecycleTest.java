@@ -0,0 +1,86 @@
+package hello.springtx.tx;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRED;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+
+@SpringBootTest(properties = "springtx.tx.metrics.recycle-status=true")
+class TxStatusRecycleTest {
+
+    @Autowired TxMetrics txMetrics;
+    @Autowired TransactionTemplate txTemplate;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+
+    @BeforeEach
+    void setUp() {
+        txMetrics.reset();
+    }
+
+    /**
+     * 끝난 트랜잭션의 상태 객체를 같은 스레드의 다음 트랜잭션에서 다시 쓴다
+     */
+    @Test
+    void recycle() {
+        TransactionStatus first = txTemplate.execute(status -> status);
+        TransactionStatus second = txTemplate.execute(status -> status);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    /**
+     * 재사용해도 이전 트랜잭션의 롤백 원인이 남지 않는다
+     */
+    @Test
+    void order() throws NotEnoughMoneyException {
+        //when : 시스템 예외(롤백) 다음에 정상(커밋)
+        assertThatThrownBy(() -> order("예외")).isInstanceOf(RuntimeException.class);
+        order("정상");
+        order("정상");
+
+        //then
+        TxStatsSnapshot stats = txMetrics.snapshot("hello.springtx.order.OrderService.order", PROPAGATION_REQUIRED);
+        assertThat(stats.getBegin().getCount()).isEqualTo(3);
+        assertThat(stats.getCommitCount()).isEqualTo(2);
+        assertThat(stats.getRollbackCount()).isEqualTo(1);
+        assertThat(stats.getRollbackCauses()).containsExactly(entry(RuntimeException.class.getName(), 1L));
+    }
+
+    /**
+     * REQUIRES_NEW 로 중첩된 트랜잭션은 각자 다른 상태 객체를 쓴다
+     */
+    @Test
+    void requiresNew() {
+        //when
+        TransactionStatus outer = txTemplate.execute(status -> {
+            memberService.joinV2("recycle_requiresNew");
+            return status;
+        });
+
+        //then
+        assertThat(txMetrics.snapshot("hello.springtx.propagation.LogRepository.save", PROPAGATION_REQUIRES_NEW)
+                .getSuspendCount()).isEqualTo(1);
+        TransactionStatus next = txTemplate.execute(status -> status);
+        assertThat(next).isSameAs(outer);
+    }
+
+    private void order(String username) throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUsername(username);
+        orderService.order(order);
+    }
+
+}
@@ -0,0 +1,177 @@
+package hello.springtx.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {"springtx.warmup.enabled=true", "springtx.warmup.concurrency=2"})
+class WarmupTest {
+
+    @Autowired TransactionalWarmup warmup;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired DataSource dataSource;
+
+    /**
+     * 커넥션 풀과 JPA 워밍업은 컨텍스트가 준비되기 전에 끝나 있다
+     */
+    @Test
+    void builtIn() throws SQLException {
+        WarmupReport report = warmup.getReport();
+
+        assertThat(report.getResult(TransactionalWarmup.CONNECTION_POOL).getStatus()).isEqualTo(WarmupStatus.SUCCESS);
+        assertThat(report.getResult(JpaMetamodelWarmup.NAME).getStatus()).isEqualTo(WarmupStatus.SUCCESS);
+        assertThat(report.getResult(JpaQueryWarmup.NAME).getStatus()).isEqualTo(WarmupStatus.SUCCESS);
+
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        assertThat(hikari.getHikariPoolMXBean().getTotalConnections()).isGreaterThanOrEqualTo(hikari.getMinimumIdle());
+    }
+
+    /**
+     * 의존 관계가 없는 작업은 병렬로, 의존하는 작업은 앞 작업이 모두 끝난 뒤에 각자의 트랜잭션에서 실행된다
+     */
+    @Test
+    void parallelAndOrdered() {
+        WarmupReport report = warmup.getReport();
+
+        WarmupResult a = report.getResult("a");
+        WarmupResult b = report.getResult("b");
+        WarmupResult after = report.getResult("after");
+        assertThat(a.getStatus()).isEqualTo(WarmupStatus.SUCCESS); // a, b 는 서로를 기다린다 (병렬이 아니면 실패)
+        assertThat(b.getStatus()).isEqualTo(WarmupStatus.SUCCESS);
+        assertThat(a.getThread()).isNotEqualTo(b.getThread());
+        assertThat(after.getStatus()).isEqualTo(WarmupStatus.SUCCESS);
+        assertThat(after.getStartedAfter()).isGreaterThanOrEqualTo(a.getFinishedAfter());
+        assertThat(after.getStartedAfter()).isGreaterThanOrEqualTo(b.getFinishedAfter());
+    }
+
+    /**
+     * 실패한 작업에 의존하는 작업은 실행하지 않는다, 나머지 작업과 애플리케이션 시작은 계속된다
+     */
+    @Test
+    void failure() {
+        WarmupReport report = warmup.getReport();
+
+        assertThat(report.isSuccess()).isFalse();
+        assertThat(report.getResult("fail").getStatus()).isEqualTo(WarmupStatus.FAILED);
+        assertThat(report.getResult("fail").getFailure()).hasMessage("워밍업 예외");
+        assertThat(report.getResult("afterFail").getStatus()).isEqualTo(WarmupStatus.SKIPPED);
+        assertThat(report.getResults()).extracting(WarmupResult::getName)
+                .containsSubsequence("a", "after")
+                .containsSubsequence("b", "after")
+                .containsSubsequence("fail", "afterFail");
+    }
+
+    @Test
+    void cycle() {
+        List<TransactionalInitializer> initializers = Arrays.asList(
+                initializer("x", Collections.singleton("y"), () -> {}),
+                initializer("y", Collections.singleton("x"), () -> {}));
+        TransactionalWarmup cyclic = new TransactionalWarmup(transactionManager, initializers, null, 2, false);
+
+        assertThatThrownBy(cyclic::run)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("순환 의존");
+    }
+
+    @Test
+    void unknownDependency() {
+        List<TransactionalInitializer> initializers = Collections.singletonList(
+                initializer("x", Collections.singleton("none"), () -> {}));
+        TransactionalWarmup unknown = new TransactionalWarmup(transactionManager, initializers, null, 2, false);
+
+        assertThatThrownBy(unknown::run)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("dependsOn=none");
+    }
+
+    static TransactionalInitializer initializer(String name, Set<String> dependsOn, Runnable task) {
+        return new TransactionalInitializer() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Set<String> getDependsOn() {
+                return dependsOn;
+            }
+
+            @Override
+            public void initialize() {
+                task.run();
+            }
+        };
+    }
+
+    @TestConfiguration
+    static class WarmupTestConfig {
+
+        private final CountDownLatch bothStarted = new CountDownLatch(2);
+
+        @Bean
+        TransactionalInitializer a() {
+            return initializer("a", Collections.emptySet(), this::awaitOther);
+        }
+
+        @Bean
+        TransactionalInitializer b() {
+            return initializer("b", Collections.emptySet(), this::awaitOther);
+        }
+
+        @Bean
+        TransactionalInitializer after() {
+            return initializer("after", new LinkedHashSet<>(Arrays.asList("a", "b")), WarmupTestConfig::assertTransaction);
+        }
+
+        @Bean
+        TransactionalInitializer fail() {
+            return initializer("fail", Collections.emptySet(), () -> {
+                throw new IllegalStateException("워밍업 예외");
+            });
+        }
+
+        @Bean
+        TransactionalInitializer afterFail() {
+            return initializer("afterFail", Collections.singleton("fail"), () -> {});
+        }
+
+        private void awaitOther() {
+            assertTransaction();
+            bothStarted.countDown();
+            try {
+                if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("다른 작업이 동시에 실행되지 않았습니다.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static void assertTransaction() {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw new IllegalStateException("트랜잭션이 없습니다.");
+            }
+        }
+
+    }
+
+}